@@ -0,0 +1,46 @@
+package com.healthcare.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import static com.healthcare.config.LiveUniqueIndexes.ensureLiveUniqueIndex;
+
+/**
+ * Database backstop for SlotOccupancyIndex, whose bitmaps only see bookings
+ * made on this node. A live unique index over the doctor, date and time, live
+ * meaning not cancelled, lets MySQL refuse a second booking of a slot while
+ * any number of cancelled ones can share it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentSlotConstraint implements CommandLineRunner {
+
+    public static final String INDEX_NAME = "uk_appointments_active_slot";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** True when the violation came from this constraint rather than, say, the tracking ID. */
+    public static boolean isViolatedBy(DataIntegrityViolationException e) {
+        return LiveUniqueIndexes.isViolatedBy(e, INDEX_NAME);
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            ensureLiveUniqueIndex(jdbcTemplate, "appointments", "active_slot",
+                    "CASE WHEN status = 'CANCELLED' THEN NULL ELSE 1 END",
+                    INDEX_NAME, "doctor_id, appointment_date, appointment_time");
+        } catch (Exception e) {
+            // Existing double bookings have to be cancelled by hand before the index can be built
+            log.warn("Could not add the appointment slot constraint: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.healthcare.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled ID sequences past any rows written while the tables still
+ * used IDENTITY columns, so the first block handed out cannot collide.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceInitializer implements CommandLineRunner {
+
+    // Must match the allocationSize of the @SequenceGenerator on each entity
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "appointments_seq", "appointments",
+            "patients_seq", "patients");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        SEQUENCES.forEach((sequence, table) -> {
+            try {
+                int updated = jdbcTemplate.update("UPDATE " + sequence + " SET next_val = GREATEST(next_val, "
+                        + "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + ALLOCATION_SIZE + ")");
+                log.debug("Aligned {} with {} ({} row)", sequence, table, updated);
+            } catch (Exception e) {
+                log.warn("Could not align {} with {}: {}", sequence, table, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.healthcare.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Unique indexes that only cover live rows. MySQL has no partial indexes,
+ * so a generated column is 1 for a live row and NULL otherwise, and a unique
+ * index ending in that column refuses a second live row while any number of
+ * dead ones share the other columns. Hibernate's schema update cannot declare
+ * generated columns, so the constraints add both at startup.
+ */
+@Slf4j
+final class LiveUniqueIndexes {
+
+    private LiveUniqueIndexes() {
+    }
+
+    /**
+     * Adds {@code column}, generated from {@code expression}, and the unique
+     * index {@code indexName} over {@code indexColumns} followed by it, unless
+     * they already exist.
+     */
+    static void ensureLiveUniqueIndex(JdbcTemplate jdbcTemplate, String table, String column, String expression,
+            String indexName, String indexColumns) {
+        if (!exists(jdbcTemplate, "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = DATABASE() "
+                + "AND table_name = ? AND column_name = ?", table, column)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " TINYINT "
+                    + "GENERATED ALWAYS AS (" + expression + ") STORED");
+        }
+        if (!exists(jdbcTemplate, "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() "
+                + "AND table_name = ? AND index_name = ?", table, indexName)) {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX " + indexName + " ON " + table
+                    + " (" + indexColumns + ", " + column + ")");
+            log.info("Created unique index {} on {}", indexName, table);
+        }
+    }
+
+    /** True when the violation came from {@code indexName} rather than another key of the table. */
+    static boolean isViolatedBy(DataIntegrityViolationException e, String indexName) {
+        Throwable cause = e.getMostSpecificCause();
+        return cause.getMessage() != null && cause.getMessage().contains(indexName);
+    }
+
+    private static boolean exists(JdbcTemplate jdbcTemplate, String sql, String table, String name) {
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, table, name);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.healthcare.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * Name of this application instance, used to tell which node wrote a change
+ * log entry. Set {@code app.node-id} to pin it; otherwise it is the host
+ * name plus a random suffix, unique per start.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node-id:}") String configuredId) {
+        this.id = configuredId.isBlank() ? hostName() + "-" + UUID.randomUUID().toString().substring(0, 8)
+                : configuredId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
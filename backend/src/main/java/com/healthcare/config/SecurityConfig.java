@@ -43,13 +43,18 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/specialities/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/states/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/cities/**").permitAll()
-                        .requestMatchers("/ws/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/availability/**").permitAll()
+                        .requestMatchers("/ws/**", "/ws-native").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/hospitals/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/hospitals/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/hospitals/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/doctors/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/appointments/batch").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/appointments/export").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/api/waitlist/*/priority").hasRole("ADMIN")
                         .requestMatchers("/api/dashboard/**").hasRole("ADMIN")
+                        .requestMatchers("/api/changes/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -61,7 +66,7 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:5173", "http://localhost:3000"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Idempotency-Key"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,44 @@
+package com.healthcare.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import static com.healthcare.config.LiveUniqueIndexes.ensureLiveUniqueIndex;
+
+/**
+ * Lets a patient wait at most once per doctor and day. A unique key over the
+ * status column itself would also refuse a second cancelled or fulfilled
+ * entry, so the index only covers WAITING entries.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistEntryConstraint implements CommandLineRunner {
+
+    public static final String INDEX_NAME = "uk_waitlist_entries_waiting";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static boolean isViolatedBy(DataIntegrityViolationException e) {
+        return LiveUniqueIndexes.isViolatedBy(e, INDEX_NAME);
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            ensureLiveUniqueIndex(jdbcTemplate, "waitlist_entries", "waiting",
+                    "CASE WHEN status = 'WAITING' THEN 1 ELSE NULL END",
+                    INDEX_NAME, "patient_id, doctor_id, desired_date");
+        } catch (Exception e) {
+            // Duplicate waiting entries have to be cancelled by hand before the index can be built
+            log.warn("Could not add the waitlist entry constraint: {}", e.getMessage());
+        }
+    }
+}
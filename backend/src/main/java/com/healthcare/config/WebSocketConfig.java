@@ -1,25 +1,111 @@
 package com.healthcare.config;
 
+import com.healthcare.security.StompAuthChannelInterceptor;
+import com.healthcare.websocket.FanOutMetrics;
+import com.healthcare.websocket.PayloadEncodingInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.server.HandshakeInterceptor;
 
+import java.util.Map;
+
+/**
+ * STOMP over /ws. With {@code app.websocket.broker=relay}, /topic is relayed
+ * through an external STOMP broker (RabbitMQ, ActiveMQ) so every node's
+ * subscribers see every message; otherwise the in-JVM simple broker is used,
+ * on its own ({@code simple}) or joined to other nodes by DatabaseMessageBus
+ * ({@code database}). Patients get their own updates on
+ * /user/queue/appointments; sessions authenticate in the CONNECT frame, see
+ * StompAuthChannelInterceptor. /ws-native is the same without SockJS, for
+ * clients that negotiate binary CBOR payloads (see PayloadEncoder).
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final FanOutMetrics fanOutMetrics;
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final PayloadEncodingInterceptor payloadEncodingInterceptor;
+
+    @Value("${app.websocket.broker:simple}")
+    private String broker;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    public WebSocketConfig(FanOutMetrics fanOutMetrics, StompAuthChannelInterceptor stompAuthChannelInterceptor,
+            PayloadEncodingInterceptor payloadEncodingInterceptor) {
+        this.fanOutMetrics = fanOutMetrics;
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.payloadEncodingInterceptor = payloadEncodingInterceptor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if ("relay".equals(broker)) {
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+            // Lets a node deliver /user destinations to sessions connected to other nodes
+            config.setUserDestinationBroadcast("/topic/unresolved-user-destination");
+            config.setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authorization sees the destination as sent, before it is pointed at an encoding variant
+        registration.interceptors(stompAuthChannelInterceptor, payloadEncodingInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(fanOutMetrics);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("http://localhost:5173", "http://localhost:3000")
                 .withSockJS();
+        registry.addEndpoint("/ws-native")
+                .setAllowedOrigins("http://localhost:5173", "http://localhost:3000")
+                .addInterceptors(new HandshakeInterceptor() {
+                    @Override
+                    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                            WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                        attributes.put(PayloadEncodingInterceptor.BINARY_FRAMES, Boolean.TRUE);
+                        return true;
+                    }
+
+                    @Override
+                    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                            WebSocketHandler wsHandler, Exception exception) {
+                    }
+                });
     }
 }
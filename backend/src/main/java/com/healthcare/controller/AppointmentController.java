@@ -1,16 +1,29 @@
 package com.healthcare.controller;
 
+import com.healthcare.dto.AppointmentBatchRequest;
+import com.healthcare.dto.AppointmentBatchResponse;
+import com.healthcare.dto.AppointmentPageResponse;
 import com.healthcare.dto.AppointmentRequest;
 import com.healthcare.dto.AppointmentResponse;
+import com.healthcare.entity.Appointment;
 import com.healthcare.entity.User;
+import com.healthcare.exception.BadRequestException;
 import com.healthcare.repository.UserRepository;
+import com.healthcare.service.AppointmentExportService;
 import com.healthcare.service.AppointmentService;
+import com.healthcare.service.IdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -18,16 +31,32 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AppointmentController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final AppointmentService appointmentService;
+    private final IdempotencyService idempotencyService;
+    private final AppointmentExportService appointmentExportService;
     private final UserRepository userRepository;
 
     @PostMapping
     public ResponseEntity<AppointmentResponse> bookAppointment(
             @Valid @RequestBody AppointmentRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return ResponseEntity.ok(idempotencyService.execute("book", authentication.getName(), idempotencyKey,
+                request, AppointmentResponse.class,
+                () -> appointmentService.bookAppointment(user.getId(), request)));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<AppointmentBatchResponse> bookAppointments(
+            @Valid @RequestBody AppointmentBatchRequest request,
             Authentication authentication) {
         User user = userRepository.findByEmail(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return ResponseEntity.ok(appointmentService.bookAppointment(user.getId(), request));
+        return ResponseEntity.ok(appointmentService.bookAppointments(user.getId(), request.getAppointments()));
     }
 
     @GetMapping("/track/{trackingId}")
@@ -36,10 +65,14 @@ public class AppointmentController {
     }
 
     @GetMapping("/my")
-    public ResponseEntity<List<AppointmentResponse>> getMyAppointments(Authentication authentication) {
+    public ResponseEntity<AppointmentPageResponse> getMyAppointments(
+            @RequestParam(defaultValue = "all") String scope,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
         User user = userRepository.findByEmail(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return ResponseEntity.ok(appointmentService.getByPatientId(user.getId()));
+        return ResponseEntity.ok(appointmentService.getPatientHistory(user.getId(), scope, cursor, size));
     }
 
     @GetMapping("/recent")
@@ -47,8 +80,43 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentService.getRecentAppointments());
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAppointments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) String status) {
+        AppointmentExportService.Format exportFormat;
+        Appointment.Status statusFilter;
+        try {
+            exportFormat = AppointmentExportService.Format.valueOf(format.toUpperCase());
+            statusFilter = status != null && !status.isEmpty()
+                    ? Appointment.Status.valueOf(status.toUpperCase())
+                    : null;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid export format (" + format + ") or status (" + status + ")");
+        }
+
+        MediaType mediaType = exportFormat == AppointmentExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        String fileName = "appointments." + exportFormat.name().toLowerCase();
+        StreamingResponseBody body = out -> appointmentExportService.export(exportFormat, from, to, hospitalId,
+                statusFilter, out);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<AppointmentResponse> cancelAppointment(@PathVariable Long id) {
-        return ResponseEntity.ok(appointmentService.cancelAppointment(id));
+    public ResponseEntity<AppointmentResponse> cancelAppointment(
+            @PathVariable Long id,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        return ResponseEntity.ok(idempotencyService.execute("cancel", authentication.getName(), idempotencyKey,
+                id, AppointmentResponse.class,
+                () -> appointmentService.cancelAppointment(id)));
     }
 }
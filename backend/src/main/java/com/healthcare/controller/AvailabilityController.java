@@ -0,0 +1,29 @@
+package com.healthcare.controller;
+
+import com.healthcare.dto.AvailableSlot;
+import com.healthcare.service.AvailabilityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/availability")
+@RequiredArgsConstructor
+public class AvailabilityController {
+
+    private final AvailabilityService availabilityService;
+
+    @GetMapping("/search")
+    public ResponseEntity<List<AvailableSlot>> search(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(availabilityService.search(specialization, city, from, to, limit));
+    }
+}
@@ -0,0 +1,23 @@
+package com.healthcare.controller;
+
+import com.healthcare.dto.ChangeLogPage;
+import com.healthcare.scheduler.ChangeLogTailer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeLogController {
+
+    private final ChangeLogTailer changeLogTailer;
+
+    /** Changes after the given sequence, for admin clients catching up after a reconnect. */
+    @GetMapping
+    public ResponseEntity<ChangeLogPage> getChanges(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(changeLogTailer.replay(after, limit));
+    }
+}
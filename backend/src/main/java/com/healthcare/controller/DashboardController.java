@@ -1,20 +1,178 @@
 package com.healthcare.controller;
 
 import com.healthcare.dto.DashboardStats;
+import com.healthcare.dto.DistinctPatientsResponse;
+import com.healthcare.dto.HospitalDashboardStats;
+import com.healthcare.dto.TimeSeriesPoint;
+import com.healthcare.scheduler.AppointmentArchiver;
+import com.healthcare.scheduler.AppointmentCompleter;
+import com.healthcare.scheduler.AppointmentRollupBackfill;
+import com.healthcare.scheduler.ChangeLogTailer;
+import com.healthcare.scheduler.DatabaseChangeWatcher;
+import com.healthcare.scheduler.ReminderScheduler;
+import com.healthcare.service.AppointmentRollupService;
+import com.healthcare.service.DashboardCounters;
 import com.healthcare.service.DashboardService;
+import com.healthcare.service.DistinctPatientService;
+import com.healthcare.service.LeaseService;
+import com.healthcare.service.PatientProfileWriter;
+import com.healthcare.service.TrackingIdLookupCache;
+import com.healthcare.service.TrendingService;
+import com.healthcare.websocket.DashboardBroadcaster;
+import com.healthcare.websocket.FanOutMetrics;
+import com.healthcare.websocket.MessageBus;
+import com.healthcare.websocket.PayloadEncoder;
+import com.healthcare.service.TrackingIdAllocator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @RequiredArgsConstructor
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardCounters dashboardCounters;
+    private final TrackingIdAllocator trackingIdAllocator;
+    private final PatientProfileWriter patientProfileWriter;
+    private final AppointmentArchiver appointmentArchiver;
+    private final ReminderScheduler reminderScheduler;
+    private final AppointmentCompleter appointmentCompleter;
+    private final TrackingIdLookupCache trackingIdLookupCache;
+    private final DashboardBroadcaster dashboardBroadcaster;
+    private final AppointmentRollupService appointmentRollupService;
+    private final AppointmentRollupBackfill appointmentRollupBackfill;
+    private final TrendingService trendingService;
+    private final DistinctPatientService distinctPatientService;
+    private final ChangeLogTailer changeLogTailer;
+    private final DatabaseChangeWatcher databaseChangeWatcher;
+    private final LeaseService leaseService;
+    private final MessageBus messageBus;
+    private final FanOutMetrics fanOutMetrics;
+    private final PayloadEncoder payloadEncoder;
 
     @GetMapping("/stats")
     public ResponseEntity<DashboardStats> getStats() {
         return ResponseEntity.ok(dashboardService.getStats());
     }
+
+    @GetMapping("/stats/hospital/{hospitalId}")
+    public ResponseEntity<HospitalDashboardStats> getHospitalStats(@PathVariable Long hospitalId) {
+        return ResponseEntity.ok(dashboardService.getHospitalStats(hospitalId));
+    }
+
+    @GetMapping("/timeseries")
+    public ResponseEntity<List<TimeSeriesPoint>> getTimeSeries(
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) Long doctorId,
+            @RequestParam(required = false) String speciality,
+            @RequestParam(required = false) String groupBy) {
+        return ResponseEntity.ok(appointmentRollupService.query(granularity, from, to, hospitalId, doctorId,
+                speciality, groupBy));
+    }
+
+    @PostMapping("/timeseries/backfill")
+    public ResponseEntity<Map<String, Object>> backfillTimeSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(appointmentRollupBackfill.backfill(from, to));
+    }
+
+    @GetMapping("/distinct-patients")
+    public ResponseEntity<DistinctPatientsResponse> getDistinctPatients(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Long> hospitalId,
+            @RequestParam(defaultValue = "total") String interval) {
+        return ResponseEntity.ok(distinctPatientService.query(from, to, hospitalId, interval));
+    }
+
+    @GetMapping("/metrics/tracking-ids")
+    public ResponseEntity<Map<String, Object>> getTrackingIdMetrics() {
+        return ResponseEntity.ok(trackingIdAllocator.getStats());
+    }
+
+    @GetMapping("/metrics/patient-profiles")
+    public ResponseEntity<Map<String, Object>> getPatientProfileMetrics() {
+        return ResponseEntity.ok(patientProfileWriter.getStats());
+    }
+
+    @GetMapping("/metrics/archive")
+    public ResponseEntity<Map<String, Object>> getArchiveMetrics() {
+        return ResponseEntity.ok(appointmentArchiver.getStats());
+    }
+
+    @GetMapping("/metrics/reminders")
+    public ResponseEntity<Map<String, Object>> getReminderMetrics() {
+        return ResponseEntity.ok(reminderScheduler.getStats());
+    }
+
+    @GetMapping("/metrics/completion")
+    public ResponseEntity<Map<String, Object>> getCompletionMetrics() {
+        return ResponseEntity.ok(appointmentCompleter.getStats());
+    }
+
+    @GetMapping("/metrics/tracking-lookups")
+    public ResponseEntity<Map<String, Object>> getTrackingLookupMetrics() {
+        return ResponseEntity.ok(trackingIdLookupCache.getStats());
+    }
+
+    @GetMapping("/metrics/counters")
+    public ResponseEntity<Map<String, Object>> getCounterMetrics() {
+        return ResponseEntity.ok(dashboardCounters.getStats());
+    }
+
+    @GetMapping("/metrics/broadcasts")
+    public ResponseEntity<Map<String, Object>> getBroadcastMetrics() {
+        return ResponseEntity.ok(dashboardBroadcaster.getStats());
+    }
+
+    @GetMapping("/metrics/rollups")
+    public ResponseEntity<Map<String, Object>> getRollupMetrics() {
+        Map<String, Object> stats = new LinkedHashMap<>(appointmentRollupService.getStats());
+        stats.put("backfill", appointmentRollupBackfill.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/metrics/trending")
+    public ResponseEntity<Map<String, Object>> getTrendingMetrics() {
+        return ResponseEntity.ok(trendingService.getStats());
+    }
+
+    @GetMapping("/metrics/distinct-patients")
+    public ResponseEntity<Map<String, Object>> getDistinctPatientMetrics() {
+        return ResponseEntity.ok(distinctPatientService.getStats());
+    }
+
+    @GetMapping("/metrics/change-log")
+    public ResponseEntity<Map<String, Object>> getChangeLogMetrics() {
+        return ResponseEntity.ok(changeLogTailer.getStats());
+    }
+
+    @GetMapping("/metrics/change-watcher")
+    public ResponseEntity<Map<String, Object>> getChangeWatcherMetrics() {
+        Map<String, Object> stats = new LinkedHashMap<>(databaseChangeWatcher.getStats());
+        stats.put("leases", leaseService.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/metrics/websocket")
+    public ResponseEntity<Map<String, Object>> getWebSocketMetrics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("broker", messageBus.getMode());
+        stats.put("bus", messageBus.getStats());
+        stats.put("encodings", payloadEncoder.getStats());
+        stats.putAll(fanOutMetrics.getStats());
+        return ResponseEntity.ok(stats);
+    }
 }
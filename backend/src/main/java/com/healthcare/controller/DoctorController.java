@@ -1,7 +1,9 @@
 package com.healthcare.controller;
 
 import com.healthcare.dto.DoctorDTO;
+import com.healthcare.dto.TrendingDoctor;
 import com.healthcare.service.DoctorService;
+import com.healthcare.service.TrendingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +17,7 @@ import java.util.List;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final TrendingService trendingService;
 
     @GetMapping
     public ResponseEntity<Page<DoctorDTO>> getDoctors(
@@ -30,6 +33,13 @@ public class DoctorController {
         return ResponseEntity.ok(doctorService.getAllDoctors());
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingDoctor>> getTrendingDoctors(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(trendingService.topDoctors(window, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<DoctorDTO> getDoctorById(@PathVariable Long id) {
         return ResponseEntity.ok(doctorService.getDoctorById(id));
@@ -1,7 +1,9 @@
 package com.healthcare.controller;
 
 import com.healthcare.dto.HospitalDTO;
+import com.healthcare.dto.TrendingHospital;
 import com.healthcare.service.HospitalService;
+import com.healthcare.service.TrendingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +17,7 @@ import java.util.List;
 public class HospitalController {
 
     private final HospitalService hospitalService;
+    private final TrendingService trendingService;
 
     @GetMapping
     public ResponseEntity<Page<HospitalDTO>> getHospitals(
@@ -32,6 +35,13 @@ public class HospitalController {
         return ResponseEntity.ok(hospitalService.getAllHospitals());
     }
 
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingHospital>> getTrendingHospitals(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(trendingService.topHospitals(window, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<HospitalDTO> getHospitalById(@PathVariable Long id) {
         return ResponseEntity.ok(hospitalService.getHospitalById(id));
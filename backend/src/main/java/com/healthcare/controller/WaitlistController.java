@@ -0,0 +1,53 @@
+package com.healthcare.controller;
+
+import com.healthcare.dto.WaitlistEntryResponse;
+import com.healthcare.dto.WaitlistPriorityRequest;
+import com.healthcare.dto.WaitlistRequest;
+import com.healthcare.entity.User;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.service.WaitlistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/waitlist")
+@RequiredArgsConstructor
+public class WaitlistController {
+
+    private final WaitlistService waitlistService;
+    private final UserRepository userRepository;
+
+    @PostMapping
+    public ResponseEntity<WaitlistEntryResponse> join(
+            @Valid @RequestBody WaitlistRequest request,
+            Authentication authentication) {
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return ResponseEntity.ok(waitlistService.join(user.getId(), request));
+    }
+
+    @GetMapping("/my")
+    public ResponseEntity<List<WaitlistEntryResponse>> getMyEntries(Authentication authentication) {
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return ResponseEntity.ok(waitlistService.getByPatientId(user.getId()));
+    }
+
+    @PutMapping("/{id}/priority")
+    public ResponseEntity<WaitlistEntryResponse> setPriority(@PathVariable Long id,
+            @Valid @RequestBody WaitlistPriorityRequest request) {
+        return ResponseEntity.ok(waitlistService.setPriority(id, request.getPriority()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<WaitlistEntryResponse> leave(@PathVariable Long id, Authentication authentication) {
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return ResponseEntity.ok(waitlistService.leave(user.getId(), id));
+    }
+}
@@ -0,0 +1,19 @@
+package com.healthcare.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentBatchRequest {
+
+    // Items are validated one by one so a bad row is reported instead of failing the batch
+    @NotEmpty(message = "At least one appointment is required")
+    @Size(max = 500, message = "A batch may contain at most 500 appointments")
+    private List<AppointmentRequest> appointments;
+}
@@ -0,0 +1,20 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+/**
+ * What live subscribers get when an appointment changes. The version is the
+ * change-log sequence of the change, so a later delta for the same
+ * appointment always carries a larger one; clients fetch the full
+ * appointment through the REST API when they need it.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppointmentDelta {
+    private Long id;
+    private String status;
+    private long version;
+}
@@ -0,0 +1,16 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppointmentPageResponse {
+    private List<AppointmentResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -1,6 +1,8 @@
 package com.healthcare.dto;
 
+import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.*;
 
 @Getter
@@ -21,10 +23,25 @@ public class AppointmentRequest {
     @NotNull(message = "Appointment time is required")
     private String appointmentTime;
 
+    // Batch bookings name the patient per row by the id or email of an existing patient
+    private Long patientId;
+
+    @Email(message = "Invalid patient email format")
+    @Size(max = 255, message = "Patient email must be at most 255 characters")
+    private String patientEmail;
+
+    // Limits match the patients columns, so a profile the booking accepted can always be written
+    @Size(max = 255, message = "Patient name must be at most 255 characters")
     private String patientName;
+
     private String dob;
+
+    @Size(max = 10, message = "Gender must be at most 10 characters")
     private String gender;
+
+    @Size(max = 255, message = "Mobile number must be at most 255 characters")
     private String mobileNumber;
+
     private Integer age;
     private String lastAppointment;
 }
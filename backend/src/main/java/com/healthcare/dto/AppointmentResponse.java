@@ -1,13 +1,21 @@
 package com.healthcare.dto;
 
+import com.healthcare.entity.Appointment;
 import lombok.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class AppointmentResponse {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private Long id;
     private String trackingId;
     private String patientName;
@@ -18,4 +26,15 @@ public class AppointmentResponse {
     private String appointmentTime;
     private String status;
     private String createdAt;
+
+    // Target of the JPQL constructor expression in AppointmentRepository.RESPONSE_SELECT
+    public AppointmentResponse(Long id, String trackingId, String patientName, String doctorName,
+            String doctorSpecialization, String hospitalName, LocalDate appointmentDate,
+            LocalTime appointmentTime, Appointment.Status status, LocalDateTime createdAt) {
+        this(id, trackingId, patientName, doctorName, doctorSpecialization, hospitalName,
+                appointmentDate.toString(),
+                appointmentTime.format(TIME_FORMAT),
+                status.name(),
+                createdAt != null ? createdAt.toString() : null);
+    }
 }
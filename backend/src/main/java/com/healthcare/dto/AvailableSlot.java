@@ -0,0 +1,19 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AvailableSlot {
+    private Long doctorId;
+    private String doctorName;
+    private String specialization;
+    private Long hospitalId;
+    private String hospitalName;
+    private String city;
+    private String date;
+    private String time;
+}
@@ -0,0 +1,18 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeEvent {
+    private long sequence;
+    private String entityType;
+    private Long entityId;
+    private String action;
+    private Long hospitalId;
+    private String status;
+    private String at;
+}
@@ -0,0 +1,16 @@
+package com.healthcare.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeLogPage {
+    private List<ChangeEvent> changes;
+    private long lastSequence;
+    private boolean hasMore;
+    private boolean resyncRequired;
+}
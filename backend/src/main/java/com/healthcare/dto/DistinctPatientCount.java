@@ -0,0 +1,14 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DistinctPatientCount {
+    private String from;
+    private String to;
+    private long distinctPatients;
+}
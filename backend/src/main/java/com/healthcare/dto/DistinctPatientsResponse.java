@@ -0,0 +1,19 @@
+package com.healthcare.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DistinctPatientsResponse {
+    private String from;
+    private String to;
+    private List<Long> hospitalIds;
+    private String interval;
+    private long distinctPatients;
+    private double relativeStandardError;
+    private List<DistinctPatientCount> buckets;
+}
@@ -0,0 +1,17 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HospitalDashboardStats {
+    private Long hospitalId;
+    private long totalDoctors;
+    private long totalAppointments;
+    private long bookedAppointments;
+    private long completedAppointments;
+    private long cancelledAppointments;
+}
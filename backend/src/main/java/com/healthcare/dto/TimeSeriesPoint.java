@@ -0,0 +1,15 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimeSeriesPoint {
+    private String bucketStart;
+    private String key;
+    private long booked;
+    private long cancelled;
+}
@@ -0,0 +1,18 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendingDoctor {
+    private Long id;
+    private String name;
+    private String specialization;
+    private Long hospitalId;
+    private String hospitalName;
+    private String imageUrl;
+    private long bookings;
+}
@@ -0,0 +1,16 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendingHospital {
+    private Long id;
+    private String name;
+    private String city;
+    private String imageUrl;
+    private long bookings;
+}
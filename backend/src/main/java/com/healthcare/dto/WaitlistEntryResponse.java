@@ -0,0 +1,19 @@
+package com.healthcare.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WaitlistEntryResponse {
+    private Long id;
+    private Long doctorId;
+    private String doctorName;
+    private String desiredDate;
+    private Integer priority;
+    private String status;
+    private Long appointmentId;
+    private String createdAt;
+}
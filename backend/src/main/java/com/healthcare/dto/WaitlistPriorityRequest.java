@@ -0,0 +1,18 @@
+package com.healthcare.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistPriorityRequest {
+
+    @NotNull(message = "Priority is required")
+    @Min(value = 0, message = "Priority must be between 0 and 100")
+    @Max(value = 100, message = "Priority must be between 0 and 100")
+    private Integer priority;
+}
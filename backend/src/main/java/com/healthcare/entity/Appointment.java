@@ -7,7 +7,12 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_patient_created", columnList = "patient_id, created_at, id"),
+        @Index(name = "idx_appointments_date", columnList = "appointment_date"),
+        @Index(name = "idx_appointments_status_id", columnList = "status, id"),
+        @Index(name = "idx_appointments_updated_hospital", columnList = "updated_at, hospital_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +21,8 @@ import java.time.LocalTime;
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "tracking_id", nullable = false, unique = true, length = 50)
@@ -0,0 +1,78 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Booked and cancelled counts for one doctor at one hospital within one
+ * minute, hour or day bucket. Minute, hour and day rollups share the table
+ * and are told apart by {@code granularity}, which leads the unique key so
+ * a range query for one granularity is a single index range scan.
+ */
+@Entity
+@Table(name = "appointment_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_appointment_rollups_bucket",
+                columnNames = { "granularity", "bucket_start", "hospital_id", "doctor_id" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AppointmentRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "hospital_id", nullable = false)
+    private Long hospitalId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(length = 100)
+    private String speciality;
+
+    @Column(nullable = false)
+    private long booked;
+
+    @Column(nullable = false)
+    private long cancelled;
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES, "%Y-%m-%d %H:%i:00"),
+        HOUR(ChronoUnit.HOURS, "%Y-%m-%d %H:00:00"),
+        DAY(ChronoUnit.DAYS, "%Y-%m-%d 00:00:00");
+
+        private final ChronoUnit unit;
+        private final String sqlFormat;
+
+        Granularity(ChronoUnit unit, String sqlFormat) {
+            this.unit = unit;
+            this.sqlFormat = sqlFormat;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        public ChronoUnit unit() {
+            return unit;
+        }
+
+        /** MySQL DATE_FORMAT pattern that truncates a DATETIME to this granularity. */
+        public String sqlFormat() {
+            return sqlFormat;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Cold copy of an {@link Appointment} moved out of the hot table by the
+ * archiver. Rows keep their original id and tracking ID.
+ */
+@Entity
+@Table(name = "appointments_archive", indexes = {
+        @Index(name = "idx_appointments_archive_patient_created", columnList = "patient_id, created_at, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedAppointment {
+
+    @Id
+    private Long id;
+
+    @Column(name = "tracking_id", nullable = false, unique = true, length = 50)
+    private String trackingId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    private User patient;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "doctor_id", nullable = false)
+    private Doctor doctor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "hospital_id", nullable = false)
+    private Hospital hospital;
+
+    @Column(name = "appointment_date", nullable = false)
+    private LocalDate appointmentDate;
+
+    @Column(name = "appointment_time", nullable = false)
+    private LocalTime appointmentTime;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Appointment.Status status;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
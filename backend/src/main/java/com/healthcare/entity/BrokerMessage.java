@@ -0,0 +1,38 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A STOMP message one node hands to the others when the database bus is
+ * selected. The payload is the JSON body as sent to subscribers; rows are
+ * short-lived and pruned after {@code app.websocket.bus.retention-seconds}.
+ */
+@Entity
+@Table(name = "broker_messages", indexes = {
+        @Index(name = "idx_broker_messages_published", columnList = "published_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BrokerMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 255)
+    private String destination;
+
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    @Column(nullable = false, length = 100)
+    private String origin;
+
+    /** Epoch milliseconds on the publishing node's clock. */
+    @Column(name = "published_at", nullable = false)
+    private Long publishedAt;
+}
@@ -0,0 +1,84 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * One committed change to an appointment, doctor or hospital. Rows are only
+ * ever appended, in the same transaction as the change they describe, and
+ * the auto-increment id is the sequence number clients resume from.
+ */
+@Entity
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_created", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Action action;
+
+    @Column(name = "hospital_id")
+    private Long hospitalId;
+
+    @Column(name = "tracking_id", length = 50)
+    private String trackingId;
+
+    @Column(length = 20)
+    private String status;
+
+    // Appointment updates only: the status the change moved away from
+    @Column(name = "previous_status", length = 20)
+    private String previousStatus;
+
+    // Appointment entries only: the slot, so other nodes can keep their SlotOccupancyIndex current
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "appointment_date")
+    private LocalDate appointmentDate;
+
+    @Column(name = "appointment_time")
+    private LocalTime appointmentTime;
+
+    @Column(nullable = false, length = 100)
+    private String origin;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    public enum EntityType {
+        APPOINTMENT, DOCTOR, HOSPITAL
+    }
+
+    /** EXTERNAL marks appointments at a hospital changed outside the application; see DatabaseChangeWatcher. */
+    public enum Action {
+        CREATED, UPDATED, DELETED, EXTERNAL
+    }
+}
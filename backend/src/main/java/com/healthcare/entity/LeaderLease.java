@@ -0,0 +1,33 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A named lease held by at most one node at a time. Acquiring and renewing
+ * are single conditional UPDATEs compared against the database clock, so
+ * nodes never need to agree on their own clocks.
+ */
+@Entity
+@Table(name = "leader_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaderLease {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false, length = 100)
+    private String holder;
+
+    @Column(name = "expires_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime expiresAt;
+
+    @Column(name = "acquired_at", columnDefinition = "DATETIME(3)")
+    private LocalDateTime acquiredAt;
+}
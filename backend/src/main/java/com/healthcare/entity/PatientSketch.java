@@ -0,0 +1,39 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * HyperLogLog sketch of the distinct patients booked at one hospital for one
+ * appointment day. Sketches merge, so any range of days and set of
+ * hospitals can be answered from these rows without touching appointments.
+ */
+@Entity
+@Table(name = "patient_sketches", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_patient_sketches_day_hospital", columnNames = { "day", "hospital_id" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "hospital_id", nullable = false)
+    private Long hospitalId;
+
+    @Column(nullable = false, columnDefinition = "BLOB")
+    private byte[] registers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.healthcare.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Serialized state of one trending window (for example doctors over the last
+ * day), written periodically so a restart resumes the window instead of
+ * starting empty.
+ */
+@Entity
+@Table(name = "trending_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendingCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] payload;
+
+    @Column(name = "saved_at", nullable = false)
+    private LocalDateTime savedAt;
+}
@@ -0,0 +1,43 @@
+package com.healthcare.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appends one line per reminder to a local file, for exercising the
+ * reminder pipeline without a real SMS or e-mail gateway.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reminders.sender", havingValue = "file")
+public class FileReminderSender implements ReminderSender {
+
+    private final Path file;
+
+    public FileReminderSender(@Value("${app.reminders.file:reminders.log}") String file) {
+        this.file = Path.of(file);
+    }
+
+    @Override
+    public synchronized void send(List<Reminder> reminders) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            String sentAt = LocalDateTime.now().toString();
+            for (Reminder r : reminders) {
+                writer.write(String.join("\t", sentAt, r.patientEmail(), r.trackingId(), r.doctorName(),
+                        r.hospitalName(), r.appointmentDate().toString(), r.appointmentTime().toString(),
+                        String.valueOf(r.minutesBefore())));
+                writer.write('\n');
+            }
+        }
+    }
+}
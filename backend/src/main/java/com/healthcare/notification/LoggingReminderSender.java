@@ -0,0 +1,22 @@
+package com.healthcare.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "app.reminders.sender", havingValue = "log", matchIfMissing = true)
+@Slf4j
+public class LoggingReminderSender implements ReminderSender {
+
+    @Override
+    public void send(List<Reminder> reminders) {
+        for (Reminder r : reminders) {
+            log.info("Reminder to {}: appointment {} with {} at {} on {} {} ({} min before)",
+                    r.patientEmail(), r.trackingId(), r.doctorName(), r.hospitalName(),
+                    r.appointmentDate(), r.appointmentTime(), r.minutesBefore());
+        }
+    }
+}
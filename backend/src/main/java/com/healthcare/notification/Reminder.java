@@ -0,0 +1,13 @@
+package com.healthcare.notification;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A due appointment reminder; {@code minutesBefore} says which of the
+ * configured lead times produced it.
+ */
+public record Reminder(Long appointmentId, String trackingId, Long patientId, String patientEmail,
+        String doctorName, String hospitalName, LocalDate appointmentDate, LocalTime appointmentTime,
+        int minutesBefore) {
+}
@@ -0,0 +1,12 @@
+package com.healthcare.notification;
+
+import java.util.List;
+
+/**
+ * Delivery channel for appointment reminders. Implementations receive due
+ * reminders in batches and should not block the scheduler for long.
+ */
+public interface ReminderSender {
+
+    void send(List<Reminder> reminders) throws Exception;
+}
@@ -1,25 +1,148 @@
 package com.healthcare.repository;
 
+import com.healthcare.dto.AppointmentResponse;
 import com.healthcare.entity.Appointment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
+    /**
+     * Builds {@link AppointmentResponse} rows straight from one joined SELECT,
+     * so read endpoints never touch the lazy associations.
+     */
+    String RESPONSE_SELECT = "SELECT new com.healthcare.dto.AppointmentResponse(" +
+            "a.id, a.trackingId, p.name, d.name, d.specialization, h.name, " +
+            "a.appointmentDate, a.appointmentTime, a.status, a.createdAt) " +
+            "FROM Appointment a JOIN a.patient p JOIN a.doctor d JOIN a.hospital h ";
+
     Optional<Appointment> findByTrackingId(String trackingId);
 
-    List<Appointment> findByPatientIdOrderByCreatedAtDesc(Long patientId);
+    boolean existsByTrackingIdStartingWith(String prefix);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.trackingId FROM Appointment a")
+    Stream<String> streamTrackingIds();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.hospital.id, a.appointmentDate, a.patient.id FROM Appointment a")
+    Stream<Object[]> streamPatientVisits();
+
+    @Query(RESPONSE_SELECT + "WHERE a.trackingId = :trackingId")
+    Optional<AppointmentResponse> findResponseByTrackingId(@Param("trackingId") String trackingId);
+
+    @Query(RESPONSE_SELECT +
+            "WHERE a.patient.id = :patientId " +
+            "AND (:fromDate IS NULL OR a.appointmentDate >= :fromDate) " +
+            "AND (:beforeDate IS NULL OR a.appointmentDate < :beforeDate) " +
+            "AND (:cursorCreatedAt IS NULL OR a.createdAt < :cursorCreatedAt " +
+            "OR (a.createdAt = :cursorCreatedAt AND a.id < :cursorId)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<AppointmentResponse> findPatientPage(
+            @Param("patientId") Long patientId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("beforeDate") LocalDate beforeDate,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    @Query(RESPONSE_SELECT + "ORDER BY a.createdAt DESC, a.id DESC")
+    List<AppointmentResponse> findRecentResponses(Pageable pageable);
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result set
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(RESPONSE_SELECT +
+            "WHERE (:from IS NULL OR a.appointmentDate >= :from) " +
+            "AND (:to IS NULL OR a.appointmentDate <= :to) " +
+            "AND (:hospitalId IS NULL OR h.id = :hospitalId) " +
+            "AND (:status IS NULL OR a.status = :status) " +
+            "ORDER BY a.id")
+    Stream<AppointmentResponse> streamForExport(
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("hospitalId") Long hospitalId,
+            @Param("status") Appointment.Status status);
+
+    @EntityGraph(attributePaths = { "patient", "doctor", "hospital" })
+    @Query("SELECT a FROM Appointment a WHERE a.id = :id")
+    Optional<Appointment> findWithDetailsById(@Param("id") Long id);
 
     long countByStatus(Appointment.Status status);
 
+    @Query("SELECT a.hospital.id, a.status, COUNT(a) FROM Appointment a GROUP BY a.hospital.id, a.status")
+    List<Object[]> countGroupedByHospitalAndStatus();
+
     @Query("SELECT MAX(a.id) FROM Appointment a")
     Long findMaxId();
 
-    List<Appointment> findTop10ByOrderByCreatedAtDesc();
+    @Query("SELECT a.id FROM Appointment a WHERE a.appointmentDate < :horizon AND a.id > :afterId ORDER BY a.id")
+    List<Long> findArchivableIds(@Param("horizon") LocalDate horizon, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Appointment a WHERE a.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Locks the next completion chunk after {@code afterId} (keyset on
+     * idx_appointments_status_id) and returns each row's id and hospital id.
+     * Holding the locks until commit keeps a concurrent cancel from moving a
+     * row between this read and the update by id.
+     */
+    @Query(nativeQuery = true, value = "SELECT a.id, a.hospital_id FROM appointments a " +
+            "WHERE a.status = :status AND a.id > :afterId AND (a.appointment_date < :cutoffDate " +
+            "OR (a.appointment_date = :cutoffDate AND a.appointment_time <= :cutoffTime)) " +
+            "ORDER BY a.id LIMIT :limit FOR UPDATE")
+    List<Object[]> lockElapsedChunk(@Param("status") String status, @Param("afterId") Long afterId,
+            @Param("cutoffDate") LocalDate cutoffDate, @Param("cutoffTime") LocalTime cutoffTime,
+            @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Appointment a SET a.status = :to, a.updatedAt = :now WHERE a.id IN :ids AND a.status = :from")
+    int transitionByIds(@Param("ids") List<Long> ids, @Param("from") Appointment.Status from,
+            @Param("to") Appointment.Status to, @Param("now") LocalDateTime now);
+
+    @Query("SELECT a.doctor.id, a.appointmentDate, a.appointmentTime FROM Appointment a " +
+            "WHERE a.status = :status AND a.appointmentDate >= :from")
+    List<Object[]> findBookedSlotsFrom(@Param("status") Appointment.Status status, @Param("from") LocalDate from);
+
+    @Query("SELECT a.id, a.trackingId, p.id, p.email, d.name, h.name, a.appointmentDate, a.appointmentTime " +
+            "FROM Appointment a JOIN a.patient p JOIN a.doctor d JOIN a.hospital h " +
+            "WHERE a.status = :status AND a.appointmentDate >= :from")
+    List<Object[]> findReminderTargets(@Param("status") Appointment.Status status, @Param("from") LocalDate from);
+
+    @Query("SELECT a.id, a.trackingId, p.id, p.email, d.name, h.name, a.appointmentDate, a.appointmentTime " +
+            "FROM Appointment a JOIN a.patient p JOIN a.doctor d JOIN a.hospital h " +
+            "WHERE a.status = :status AND a.id IN :ids")
+    List<Object[]> findReminderTargetsByIds(@Param("status") Appointment.Status status,
+            @Param("ids") Collection<Long> ids);
 
-    List<Appointment> findAllByUpdatedAtAfter(java.time.LocalDateTime lastCheckTime);
+    @Query("SELECT a.hospital.id, COUNT(a), MAX(a.updatedAt) FROM Appointment a " +
+            "WHERE a.updatedAt > :since GROUP BY a.hospital.id")
+    List<Object[]> countUpdatedSinceByHospital(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,47 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.AppointmentRollup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface AppointmentRollupRepository extends JpaRepository<AppointmentRollup, Long> {
+
+    @Query("SELECT r.bucketStart, r.hospitalId, r.doctorId, r.speciality, SUM(r.booked), SUM(r.cancelled) " +
+            "FROM AppointmentRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "AND (:hospitalId IS NULL OR r.hospitalId = :hospitalId) " +
+            "AND (:doctorId IS NULL OR r.doctorId = :doctorId) " +
+            "AND (:speciality IS NULL OR r.speciality = :speciality) " +
+            "GROUP BY r.bucketStart, r.hospitalId, r.doctorId, r.speciality " +
+            "ORDER BY r.bucketStart")
+    List<Object[]> findRange(@Param("granularity") AppointmentRollup.Granularity granularity,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            @Param("hospitalId") Long hospitalId, @Param("doctorId") Long doctorId,
+            @Param("speciality") String speciality);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r.bucketStart, r.hospitalId, r.doctorId, r.booked FROM AppointmentRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "AND r.booked > 0")
+    Stream<Object[]> streamBookedBetween(@Param("granularity") AppointmentRollup.Granularity granularity,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM AppointmentRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteRange(@Param("granularity") AppointmentRollup.Granularity granularity,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,82 @@
+package com.healthcare.repository;
+
+import com.healthcare.dto.AppointmentResponse;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.ArchivedAppointment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchivedAppointmentRepository extends JpaRepository<ArchivedAppointment, Long> {
+
+    String RESPONSE_SELECT = "SELECT new com.healthcare.dto.AppointmentResponse(" +
+            "a.id, a.trackingId, p.name, d.name, d.specialization, h.name, " +
+            "a.appointmentDate, a.appointmentTime, a.status, a.createdAt) " +
+            "FROM ArchivedAppointment a JOIN a.patient p JOIN a.doctor d JOIN a.hospital h ";
+
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO appointments_archive " +
+            "(id, tracking_id, patient_id, doctor_id, hospital_id, appointment_date, appointment_time, " +
+            "status, created_at, updated_at, archived_at) " +
+            "SELECT id, tracking_id, patient_id, doctor_id, hospital_id, appointment_date, appointment_time, " +
+            "status, created_at, updated_at, :archivedAt FROM appointments WHERE id IN (:ids)")
+    int copyFromAppointments(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Query(RESPONSE_SELECT + "WHERE a.trackingId = :trackingId")
+    Optional<AppointmentResponse> findResponseByTrackingId(@Param("trackingId") String trackingId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.trackingId FROM ArchivedAppointment a")
+    Stream<String> streamTrackingIds();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.hospital.id, a.appointmentDate, a.patient.id FROM ArchivedAppointment a")
+    Stream<Object[]> streamPatientVisits();
+
+    @Query(RESPONSE_SELECT +
+            "WHERE a.patient.id = :patientId " +
+            "AND (:beforeDate IS NULL OR a.appointmentDate < :beforeDate) " +
+            "AND (:cursorCreatedAt IS NULL OR a.createdAt < :cursorCreatedAt " +
+            "OR (a.createdAt = :cursorCreatedAt AND a.id < :cursorId)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<AppointmentResponse> findPatientPage(
+            @Param("patientId") Long patientId,
+            @Param("beforeDate") LocalDate beforeDate,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(RESPONSE_SELECT +
+            "WHERE (:from IS NULL OR a.appointmentDate >= :from) " +
+            "AND (:to IS NULL OR a.appointmentDate <= :to) " +
+            "AND (:hospitalId IS NULL OR h.id = :hospitalId) " +
+            "AND (:status IS NULL OR a.status = :status) " +
+            "ORDER BY a.id")
+    Stream<AppointmentResponse> streamForExport(
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("hospitalId") Long hospitalId,
+            @Param("status") Appointment.Status status);
+}
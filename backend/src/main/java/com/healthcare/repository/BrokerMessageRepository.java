@@ -0,0 +1,24 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.BrokerMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface BrokerMessageRepository extends JpaRepository<BrokerMessage, Long> {
+
+    @Query("SELECT m FROM BrokerMessage m WHERE m.id > :afterId ORDER BY m.id")
+    List<BrokerMessage> findAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM BrokerMessage m")
+    long findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM BrokerMessage m WHERE m.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Long before);
+}
@@ -0,0 +1,36 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("SELECT c FROM ChangeLogEntry c WHERE c.id > :afterId AND c.id <= :upToId ORDER BY c.id")
+    List<ChangeLogEntry> findRange(@Param("afterId") Long afterId, @Param("upToId") Long upToId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM ChangeLogEntry c")
+    long findMaxId();
+
+    @Query("SELECT COALESCE(MIN(c.id), 0) FROM ChangeLogEntry c")
+    long findMinId();
+
+    @Query("SELECT MAX(c.id) FROM ChangeLogEntry c WHERE c.createdAt < :before")
+    Long findLastIdBefore(@Param("before") LocalDateTime before);
+
+    @Query("SELECT c.hospitalId, COUNT(c) FROM ChangeLogEntry c " +
+            "WHERE c.entityType = :entityType AND c.createdAt > :since GROUP BY c.hospitalId")
+    List<Object[]> countSinceByHospital(@Param("entityType") ChangeLogEntry.EntityType entityType,
+            @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.id > :afterId AND c.id <= :upToId")
+    int deleteRange(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+}
@@ -3,8 +3,11 @@ package com.healthcare.repository;
 import com.healthcare.entity.Doctor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,5 +21,14 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
     Page<Doctor> findBySpecialization(String specialization, Pageable pageable);
 
+    @Query("SELECT d.id, d.name, d.specialization, h.id, h.name, h.city FROM Doctor d JOIN d.hospital h")
+    List<Object[]> findDirectoryEntries();
+
+    @Query("SELECT d.hospital.id, COUNT(d) FROM Doctor d GROUP BY d.hospital.id")
+    List<Object[]> countGroupedByHospital();
+
+    @EntityGraph(attributePaths = "hospital")
+    List<Doctor> findByIdIn(Collection<Long> ids);
+
     long count();
 }
@@ -0,0 +1,31 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.LeaderLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LeaderLeaseRepository extends JpaRepository<LeaderLease, String> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO leader_leases (name, holder, expires_at) " +
+            "VALUES (:name, '', '1970-01-01 00:00:01')", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    /** Takes the lease if it is free or expired, or extends it if {@code holder} already has it. */
+    @Modifying
+    @Query(value = "UPDATE leader_leases SET " +
+            "acquired_at = IF(holder = :holder, acquired_at, NOW(3)), holder = :holder, " +
+            "expires_at = TIMESTAMPADD(MICROSECOND, :durationMs * 1000, NOW(3)) " +
+            "WHERE name = :name AND (holder = :holder OR expires_at < NOW(3))", nativeQuery = true)
+    int acquireOrRenew(@Param("name") String name, @Param("holder") String holder,
+            @Param("durationMs") long durationMs);
+
+    @Modifying
+    @Query(value = "UPDATE leader_leases SET expires_at = NOW(3) WHERE name = :name AND holder = :holder",
+            nativeQuery = true)
+    int release(@Param("name") String name, @Param("holder") String holder);
+}
@@ -3,10 +3,14 @@ package com.healthcare.repository;
 import com.healthcare.entity.Patient;
 import com.healthcare.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
     Optional<Patient> findByUser(User user);
 
     Optional<Patient> findByUserId(Long userId);
+
+    List<Patient> findByUserIdIn(Collection<Long> userIds);
 }
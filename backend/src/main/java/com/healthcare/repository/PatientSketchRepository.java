@@ -0,0 +1,23 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.PatientSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PatientSketchRepository extends JpaRepository<PatientSketch, Long> {
+
+    List<PatientSketch> findByDayIn(Collection<LocalDate> days);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PatientSketch s WHERE s.day = :day AND s.hospitalId = :hospitalId")
+    Optional<PatientSketch> findForUpdate(@Param("day") LocalDate day, @Param("hospitalId") Long hospitalId);
+}
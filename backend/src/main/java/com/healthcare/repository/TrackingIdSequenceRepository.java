@@ -0,0 +1,18 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.TrackingIdSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface TrackingIdSequenceRepository extends JpaRepository<TrackingIdSequence, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TrackingIdSequence s WHERE s.year = :year")
+    Optional<TrackingIdSequence> findByYearForUpdate(@Param("year") Integer year);
+}
@@ -0,0 +1,9 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.TrendingCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrendingCheckpointRepository extends JpaRepository<TrendingCheckpoint, String> {
+}
@@ -3,6 +3,8 @@ package com.healthcare.repository;
 import com.healthcare.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -10,7 +12,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    List<User> findByEmailIn(Collection<String> emails);
+
     boolean existsByEmail(String email);
 
     long count();
+
+    long countByRole(User.Role role);
 }
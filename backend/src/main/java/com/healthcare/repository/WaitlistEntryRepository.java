@@ -0,0 +1,45 @@
+package com.healthcare.repository;
+
+import com.healthcare.entity.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    @Query("SELECT w.id, w.patient.id, w.doctor.id, w.desiredDate, w.priority, w.createdAt FROM WaitlistEntry w " +
+            "WHERE w.status = :status AND w.desiredDate >= :from")
+    List<Object[]> findQueueEntries(@Param("status") WaitlistEntry.Status status, @Param("from") LocalDate from);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.id = :id")
+    Optional<WaitlistEntry> findForUpdate(@Param("id") Long id);
+
+    /** The entry first in queue order for a doctor and day, skipping ones another backfill has locked. */
+    @Query(value = "SELECT * FROM waitlist_entries WHERE doctor_id = :doctorId AND desired_date = :date " +
+            "AND status = :status ORDER BY priority DESC, created_at, id LIMIT 1 FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<WaitlistEntry> lockFirstInQueue(@Param("doctorId") Long doctorId, @Param("date") LocalDate date,
+            @Param("status") String status);
+
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.doctor WHERE w.patient.id = :patientId " +
+            "ORDER BY w.createdAt DESC")
+    List<WaitlistEntry> findByPatientIdWithDoctor(@Param("patientId") Long patientId);
+
+    boolean existsByPatientIdAndDoctorIdAndDesiredDateAndStatus(Long patientId, Long doctorId, LocalDate desiredDate,
+            WaitlistEntry.Status status);
+
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = :expired WHERE w.status = :waiting AND w.desiredDate < :today")
+    int expireBefore(@Param("today") LocalDate today,
+            @Param("waiting") WaitlistEntry.Status waiting,
+            @Param("expired") WaitlistEntry.Status expired);
+}
@@ -0,0 +1,133 @@
+package com.healthcare.scheduler;
+
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.ArchivedAppointmentRepository;
+import com.healthcare.service.DashboardCounters;
+import com.healthcare.service.LeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves appointments dated before the retention horizon from the hot
+ * appointments table into appointments_archive. Each chunk is copied and
+ * deleted in its own transaction, so an interrupted run simply resumes with
+ * whatever is still in the hot table the next time it fires. Only the
+ * holder of the {@value #LEASE} lease runs, and it stops between chunks if
+ * the lease is lost, so two nodes never copy the same rows.
+ */
+@Component
+@Slf4j
+public class AppointmentArchiver {
+
+    static final String LEASE = "appointment-archiver";
+
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final DashboardCounters dashboardCounters;
+    private final LeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.horizon-days:365}")
+    private int horizonDays;
+
+    @Value("${app.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.archive.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${app.archive.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalArchived = new AtomicLong();
+    private volatile long lastArchivedId;
+    private volatile LocalDateTime lastRunAt;
+
+    public AppointmentArchiver(AppointmentRepository appointmentRepository,
+            ArchivedAppointmentRepository archivedAppointmentRepository,
+            DashboardCounters dashboardCounters, LeaseService leaseService,
+            PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.dashboardCounters = dashboardCounters;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void archive() {
+        if (!enabled || !leaseService.isLeader(LEASE) || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDate horizon = LocalDate.now().minusDays(horizonDays);
+            long afterId = 0;
+            int moved = 0;
+            for (int chunk = 0; chunk < maxChunksPerRun && leaseService.isLeader(LEASE); chunk++) {
+                List<Long> ids = appointmentRepository.findArchivableIds(horizon, afterId,
+                        PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                moved += moveChunk(ids);
+                afterId = ids.get(ids.size() - 1);
+                lastArchivedId = afterId;
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+            if (moved > 0) {
+                log.info("Archived {} appointments dated before {}", moved, horizon);
+                // Archived rows leave the hot-table totals in every status at once
+                dashboardCounters.reconcile();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Appointment archival stopped after id {}", lastArchivedId, e);
+        } finally {
+            lastRunAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("leader", leaseService.isLeader(LEASE));
+        stats.put("running", running.get());
+        stats.put("horizonDays", horizonDays);
+        stats.put("totalArchived", totalArchived.get());
+        stats.put("lastArchivedId", lastArchivedId);
+        stats.put("lastRunAt", lastRunAt != null ? lastRunAt.toString() : null);
+        return stats;
+    }
+
+    private int moveChunk(List<Long> ids) {
+        Integer moved = transactionTemplate.execute(status -> {
+            int copied = archivedAppointmentRepository.copyFromAppointments(ids, LocalDateTime.now());
+            appointmentRepository.deleteAllByIdIn(ids);
+            return copied;
+        });
+        totalArchived.addAndGet(moved);
+        return moved;
+    }
+}
@@ -0,0 +1,174 @@
+package com.healthcare.scheduler;
+
+import com.healthcare.entity.Appointment;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.service.ChangeLogService;
+import com.healthcare.service.DashboardCounters;
+import com.healthcare.service.LeaseService;
+import com.healthcare.service.TrackingIdLookupCache;
+import com.healthcare.websocket.WebSocketService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Marks BOOKED appointments whose start time has passed as COMPLETED. Each
+ * chunk is locked with SELECT ... FOR UPDATE (keyset on
+ * idx_appointments_status_id), then updated and logged by that id list in
+ * the same transaction, so a run that stops part way loses nothing: the next
+ * run picks up whatever is still BOOKED. Only the holder of the
+ * {@value #LEASE} lease runs it.
+ */
+@Component
+@Slf4j
+public class AppointmentCompleter {
+
+    static final String LEASE = "appointment-completer";
+
+    private final AppointmentRepository appointmentRepository;
+    private final WebSocketService webSocketService;
+    private final TrackingIdLookupCache trackingIdLookupCache;
+    private final DashboardCounters dashboardCounters;
+    private final ChangeLogService changeLogService;
+    private final LeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.completion.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.completion.grace-minutes:30}")
+    private int graceMinutes;
+
+    @Value("${app.completion.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.completion.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${app.completion.max-chunks-per-run:500}")
+    private int maxChunksPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalCompleted = new AtomicLong();
+    private volatile long lastCompletedId;
+    private volatile int lastRunRows;
+    private volatile long lastRunMillis;
+    private volatile LocalDateTime lastRunAt;
+
+    public AppointmentCompleter(AppointmentRepository appointmentRepository, WebSocketService webSocketService,
+            TrackingIdLookupCache trackingIdLookupCache, DashboardCounters dashboardCounters,
+            ChangeLogService changeLogService, LeaseService leaseService,
+            PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.webSocketService = webSocketService;
+        this.trackingIdLookupCache = trackingIdLookupCache;
+        this.dashboardCounters = dashboardCounters;
+        this.changeLogService = changeLogService;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.completion.cron:0 */5 * * * *}")
+    public void completeElapsed() {
+        if (!enabled || !leaseService.isLeader(LEASE) || !running.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.nanoTime();
+        int completed = 0;
+        Set<Long> hospitalIds = new HashSet<>();
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(graceMinutes);
+            LocalDate cutoffDate = cutoff.toLocalDate();
+            LocalTime cutoffTime = cutoff.toLocalTime();
+            long afterId = 0;
+            for (int chunk = 0; chunk < maxChunksPerRun && leaseService.isLeader(LEASE); chunk++) {
+                Chunk done = completeChunk(afterId, cutoffDate, cutoffTime, hospitalIds);
+                completed += done.completed();
+                if (done.lastId() == null) {
+                    break;
+                }
+                afterId = done.lastId();
+                lastCompletedId = afterId;
+                if (done.locked() < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Appointment completion stopped after id {}", lastCompletedId, e);
+        } finally {
+            lastRunMillis = (System.nanoTime() - started) / 1_000_000;
+            lastRunRows = completed;
+            lastRunAt = LocalDateTime.now();
+            running.set(false);
+        }
+
+        if (completed > 0) {
+            log.info("Completed {} elapsed appointments in {} ms", completed, lastRunMillis);
+            trackingIdLookupCache.invalidateAll();
+            hospitalIds.forEach(webSocketService::broadcastDashboardUpdate);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("leader", leaseService.isLeader(LEASE));
+        stats.put("running", running.get());
+        stats.put("graceMinutes", graceMinutes);
+        stats.put("totalCompleted", totalCompleted.get());
+        stats.put("lastCompletedId", lastCompletedId);
+        stats.put("lastRunRows", lastRunRows);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunRowsPerSecond", lastRunMillis > 0 ? lastRunRows * 1000L / lastRunMillis : lastRunRows);
+        stats.put("lastRunAt", lastRunAt != null ? lastRunAt.toString() : null);
+        return stats;
+    }
+
+    private Chunk completeChunk(long afterId, LocalDate cutoffDate, LocalTime cutoffTime, Set<Long> hospitalIds) {
+        Chunk done = transactionTemplate.execute(status -> {
+            List<Object[]> rows = appointmentRepository.lockElapsedChunk(Appointment.Status.BOOKED.name(), afterId,
+                    cutoffDate, cutoffTime, chunkSize);
+            if (rows.isEmpty()) {
+                return new Chunk(0, 0, null);
+            }
+            List<Long> ids = new ArrayList<>(rows.size());
+            Map<Long, Long> perHospital = new HashMap<>();
+            for (Object[] row : rows) {
+                ids.add(((Number) row[0]).longValue());
+                perHospital.merge(((Number) row[1]).longValue(), 1L, Long::sum);
+            }
+            // Every locked row is still BOOKED, so the update moves exactly these ids
+            int updated = appointmentRepository.transitionByIds(ids, Appointment.Status.BOOKED,
+                    Appointment.Status.COMPLETED, LocalDateTime.now());
+            changeLogService.appointmentsTransitioned(ids, Appointment.Status.BOOKED);
+            perHospital.forEach((hospitalId, count) -> dashboardCounters.appointmentsMovedAfterCommit(hospitalId,
+                    Appointment.Status.BOOKED, Appointment.Status.COMPLETED, count));
+            hospitalIds.addAll(perHospital.keySet());
+            return new Chunk(rows.size(), updated, ids.get(ids.size() - 1));
+        });
+        totalCompleted.addAndGet(done.completed());
+        return done;
+    }
+
+    private record Chunk(int locked, int completed, Long lastId) {
+    }
+}
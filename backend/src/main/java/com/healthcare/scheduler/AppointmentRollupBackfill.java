@@ -0,0 +1,132 @@
+package com.healthcare.scheduler;
+
+import com.healthcare.entity.AppointmentRollup;
+import com.healthcare.exception.BadRequestException;
+import com.healthcare.repository.AppointmentRollupRepository;
+import com.healthcare.service.AppointmentRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds appointment_rollups for past days from the appointment tables.
+ * Bookings count at created_at and cancellations at the updated_at of
+ * cancelled rows. Each granularity is replaced in its own transaction with
+ * one DELETE and one INSERT ... SELECT ... GROUP BY; today is never touched,
+ * because its buckets are still being fed by live bookings.
+ */
+@Component
+@Slf4j
+public class AppointmentRollupBackfill {
+
+    private static final LocalDate EPOCH = LocalDate.of(1970, 1, 1);
+
+    private static final String EVENTS = "SELECT created_at AS at, hospital_id, doctor_id, " +
+            "1 AS booked, 0 AS cancelled FROM %1$s WHERE created_at >= ? AND created_at < ? " +
+            "UNION ALL SELECT updated_at, hospital_id, doctor_id, 0, 1 " +
+            "FROM %1$s WHERE status = 'CANCELLED' AND updated_at >= ? AND updated_at < ?";
+
+    private static final String INSERT_ROLLUPS = "INSERT INTO appointment_rollups " +
+            "(granularity, bucket_start, hospital_id, doctor_id, speciality, booked, cancelled) " +
+            "SELECT '%1$s', DATE_FORMAT(e.at, '%2$s'), e.hospital_id, e.doctor_id, MAX(d.specialization), " +
+            "SUM(e.booked), SUM(e.cancelled) " +
+            "FROM (" + EVENTS.formatted("appointments") + " UNION ALL " + EVENTS.formatted("appointments_archive") +
+            ") e LEFT JOIN doctors d ON d.id = e.doctor_id " +
+            "GROUP BY DATE_FORMAT(e.at, '%2$s'), e.hospital_id, e.doctor_id";
+
+    private final AppointmentRollupRepository rollupRepository;
+    private final AppointmentRollupService rollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public AppointmentRollupBackfill(AppointmentRollupRepository rollupRepository,
+            AppointmentRollupService rollupService, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() == 0) {
+            try {
+                backfill(null, null);
+            } catch (Exception e) {
+                log.error("Initial appointment rollup backfill failed", e);
+            }
+        }
+    }
+
+    /** Rebuilds the days in [from, to), defaulting to all history; {@code to} is capped at today. */
+    public Map<String, Object> backfill(LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null ? from : EPOCH;
+        LocalDate end = to == null || to.isAfter(today) ? today : to;
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("Backfill range is empty; only days before today can be rebuilt");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("A rollup backfill is already running");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            // Push live deltas out first so the rebuilt days are not topped up twice
+            rollupService.flush();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("from", start.toString());
+            result.put("to", end.toString());
+            for (AppointmentRollup.Granularity granularity : AppointmentRollup.Granularity.values()) {
+                LocalDate granularityStart = start;
+                if (granularity == AppointmentRollup.Granularity.MINUTE) {
+                    LocalDate retained = today.minusDays(rollupService.getMinuteRetentionDays());
+                    granularityStart = start.isBefore(retained) ? retained : start;
+                }
+                int rows = granularityStart.isBefore(end)
+                        ? rebuild(granularity, granularityStart.atStartOfDay(), end.atStartOfDay())
+                        : 0;
+                result.put(granularity.name().toLowerCase() + "Rows", rows);
+            }
+            result.put("millis", System.currentTimeMillis() - started);
+            result.put("finishedAt", LocalDateTime.now().toString());
+            lastRun = result;
+            log.info("Appointment rollup backfill finished: {}", result);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running.get());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    private int rebuild(AppointmentRollup.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        Integer rows = transactionTemplate.execute(status -> {
+            rollupRepository.deleteRange(granularity, from, to);
+            return jdbcTemplate.update(INSERT_ROLLUPS.formatted(granularity.name(), granularity.sqlFormat()),
+                    fromTs, toTs, fromTs, toTs, fromTs, toTs, fromTs, toTs);
+        });
+        return rows != null ? rows : 0;
+    }
+}
@@ -0,0 +1,253 @@
+package com.healthcare.scheduler;
+
+import com.healthcare.config.NodeIdentity;
+import com.healthcare.dto.ChangeEvent;
+import com.healthcare.dto.ChangeLogPage;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.ChangeLogEntry;
+import com.healthcare.repository.ChangeLogRepository;
+import com.healthcare.service.AvailabilityService;
+import com.healthcare.service.DashboardCounters;
+import com.healthcare.service.SlotOccupancyIndex;
+import com.healthcare.service.TrackingIdLookupCache;
+import com.healthcare.websocket.WebSocketService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows change_log by sequence on every node. Entries written by other
+ * nodes refresh this node's caches, slot index and dashboard counters and
+ * add or cancel its reminders; every entry is published on
+ * /topic/changes and the affected hospitals' dashboards are refreshed.
+ * EXTERNAL entries, from any node, drop the tracking-ID cache and reconcile
+ * the dashboard counters.
+ * Auto-increment ids are handed out before commit, so a lower id can commit
+ * after a higher one; the tailer stops at a gap and only skips it once it
+ * has stayed open for {@code app.change-log.gap-timeout-ms} (a rolled-back
+ * insert leaves a gap that never fills). The cursor therefore only moves
+ * past committed history, and replay never serves past it.
+ */
+@Component
+@Slf4j
+public class ChangeLogTailer {
+
+    private static final int MAX_REPLAY = 1000;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final WebSocketService webSocketService;
+    private final TrackingIdLookupCache trackingIdLookupCache;
+    private final AvailabilityService availabilityService;
+    private final DashboardCounters dashboardCounters;
+    private final ReminderScheduler reminderScheduler;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${app.change-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.change-log.gap-timeout-ms:2000}")
+    private long gapTimeoutMs;
+
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong gapsSkipped = new AtomicLong();
+    private volatile long gapOpenSince;
+
+    public ChangeLogTailer(ChangeLogRepository changeLogRepository, WebSocketService webSocketService,
+            TrackingIdLookupCache trackingIdLookupCache, AvailabilityService availabilityService,
+            DashboardCounters dashboardCounters, ReminderScheduler reminderScheduler,
+            SlotOccupancyIndex slotOccupancyIndex, NodeIdentity nodeIdentity) {
+        this.changeLogRepository = changeLogRepository;
+        this.webSocketService = webSocketService;
+        this.trackingIdLookupCache = trackingIdLookupCache;
+        this.availabilityService = availabilityService;
+        this.dashboardCounters = dashboardCounters;
+        this.reminderScheduler = reminderScheduler;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.nodeIdentity = nodeIdentity;
+    }
+
+    /** Starts at the current end of the log; earlier changes are already reflected in what this node loads. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        cursor.set(changeLogRepository.findMaxId());
+        log.info("Change log tailer starting after sequence {}", cursor.get());
+    }
+
+    @Scheduled(fixedDelayString = "${app.change-log.poll-ms:1000}")
+    public void poll() {
+        long from = cursor.get();
+        if (from < 0) {
+            return;
+        }
+        try {
+            List<ChangeLogEntry> entries = changeLogRepository.findRange(from, Long.MAX_VALUE,
+                    PageRequest.of(0, batchSize));
+            if (entries.isEmpty()) {
+                gapOpenSince = 0;
+                return;
+            }
+            Set<Long> hospitalIds = new LinkedHashSet<>();
+            Set<Long> booked = new LinkedHashSet<>();
+            boolean directoryChanged = false;
+            boolean externalChange = false;
+            long position = from;
+            for (ChangeLogEntry entry : entries) {
+                if (entry.getId() != position + 1 && !gapExpired()) {
+                    break;
+                }
+                if (entry.getId() != position + 1) {
+                    gapsSkipped.incrementAndGet();
+                    log.debug("Skipping change log gap {}..{}", position + 1, entry.getId() - 1);
+                }
+                gapOpenSince = 0;
+                position = entry.getId();
+                if (entry.getAction() == ChangeLogEntry.Action.EXTERNAL) {
+                    externalChange = true;
+                } else {
+                    directoryChanged |= apply(entry, booked);
+                }
+                if (entry.getHospitalId() != null) {
+                    hospitalIds.add(entry.getHospitalId());
+                }
+                webSocketService.publishChange(toEvent(entry));
+                published.incrementAndGet();
+            }
+            cursor.set(position);
+            reminderScheduler.scheduleBooked(booked);
+            if (directoryChanged) {
+                availabilityService.refreshDirectory();
+            }
+            if (externalChange) {
+                // Unknown rows changed; nothing local can be trusted to be current
+                trackingIdLookupCache.invalidateAll();
+                dashboardCounters.reconcile();
+            }
+            hospitalIds.forEach(webSocketService::broadcastDashboardUpdate);
+        } catch (Exception e) {
+            log.error("Error tailing change log after sequence {}", from, e);
+        }
+    }
+
+    /**
+     * Entries after {@code afterSequence} that this node has already
+     * published, oldest first. A client that has fallen behind the retained
+     * log is told to reload instead.
+     */
+    public ChangeLogPage replay(long afterSequence, int limit) {
+        long upTo = cursor.get();
+        int size = Math.max(1, Math.min(limit, MAX_REPLAY));
+        if (afterSequence < changeLogRepository.findMinId() - 1) {
+            return ChangeLogPage.builder().changes(List.of()).lastSequence(upTo).resyncRequired(true).build();
+        }
+        List<ChangeEvent> changes = changeLogRepository.findRange(afterSequence, upTo, PageRequest.of(0, size + 1))
+                .stream().map(this::toEvent).toList();
+        boolean hasMore = changes.size() > size;
+        List<ChangeEvent> page = hasMore ? changes.subList(0, size) : changes;
+        return ChangeLogPage.builder()
+                .changes(page)
+                .lastSequence(page.isEmpty() ? Math.max(afterSequence, 0) : page.get(page.size() - 1).getSequence())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cursor", cursor.get());
+        stats.put("published", published.get());
+        stats.put("gapsSkipped", gapsSkipped.get());
+        stats.put("waitingOnGap", gapOpenSince != 0);
+        return stats;
+    }
+
+    /**
+     * Applies another node's change to local state, collecting appointments
+     * that are now booked into {@code booked} so their reminders can be
+     * loaded together; returns whether the doctor directory needs reloading.
+     */
+    private boolean apply(ChangeLogEntry entry, Set<Long> booked) {
+        if (nodeIdentity.getId().equals(entry.getOrigin())) {
+            return false;
+        }
+        if (entry.getEntityType() == ChangeLogEntry.EntityType.APPOINTMENT) {
+            if (entry.getTrackingId() != null) {
+                trackingIdLookupCache.recordIssued(entry.getTrackingId());
+                trackingIdLookupCache.invalidate(entry.getTrackingId());
+            }
+            countRemote(entry);
+            boolean hasSlot = entry.getDoctorId() != null && entry.getAppointmentDate() != null
+                    && entry.getAppointmentTime() != null;
+            if (Appointment.Status.BOOKED.name().equals(entry.getStatus())) {
+                booked.add(entry.getEntityId());
+                if (hasSlot) {
+                    slotOccupancyIndex.tryReserve(entry.getDoctorId(), entry.getAppointmentDate(),
+                            entry.getAppointmentTime());
+                }
+            } else {
+                if (hasSlot && Appointment.Status.CANCELLED.name().equals(entry.getStatus())) {
+                    slotOccupancyIndex.release(entry.getDoctorId(), entry.getAppointmentDate(),
+                            entry.getAppointmentTime());
+                }
+                booked.remove(entry.getEntityId());
+                reminderScheduler.cancel(entry.getEntityId());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the dashboard counters for another node's appointment change, so
+     * the dashboards published from this node include it without waiting for
+     * DashboardCounters.reconcile. There is no transaction here, so the
+     * counters move at once.
+     */
+    private void countRemote(ChangeLogEntry entry) {
+        if (entry.getHospitalId() == null || entry.getStatus() == null) {
+            return;
+        }
+        Appointment.Status status = Appointment.Status.valueOf(entry.getStatus());
+        if (entry.getAction() == ChangeLogEntry.Action.CREATED) {
+            dashboardCounters.appointmentsAddedAfterCommit(entry.getHospitalId(), status, 1);
+        } else if (entry.getPreviousStatus() != null && !entry.getPreviousStatus().equals(entry.getStatus())) {
+            dashboardCounters.appointmentsMovedAfterCommit(entry.getHospitalId(),
+                    Appointment.Status.valueOf(entry.getPreviousStatus()), status, 1);
+        }
+    }
+
+    private boolean gapExpired() {
+        long now = System.currentTimeMillis();
+        if (gapOpenSince == 0) {
+            gapOpenSince = now;
+        }
+        return now - gapOpenSince >= gapTimeoutMs;
+    }
+
+    private ChangeEvent toEvent(ChangeLogEntry entry) {
+        return ChangeEvent.builder()
+                .sequence(entry.getId())
+                .entityType(entry.getEntityType().name())
+                .entityId(entry.getEntityId())
+                .action(entry.getAction().name())
+                .hospitalId(entry.getHospitalId())
+                .status(entry.getStatus())
+                .at(entry.getCreatedAt().toString())
+                .build();
+    }
+}
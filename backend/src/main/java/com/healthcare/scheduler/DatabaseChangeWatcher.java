@@ -1,47 +1,163 @@
 package com.healthcare.scheduler;
 
-import com.healthcare.entity.Appointment;
+import com.healthcare.entity.ChangeLogEntry;
 import com.healthcare.repository.AppointmentRepository;
-import com.healthcare.websocket.WebSocketService;
-import lombok.RequiredArgsConstructor;
+import com.healthcare.repository.ChangeLogRepository;
+import com.healthcare.service.ChangeLogService;
+import com.healthcare.service.LeaseService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Catches appointment writes that bypass the application, and so never
+ * reach change_log: other tools, manual SQL, restores. Only the node holding
+ * the {@value #LEASE} lease polls. Each poll is one COUNT/MAX(updated_at)
+ * projection per hospital over idx_appointments_updated_hospital, compared
+ * with the change-log entries for the same window; a hospital with more
+ * changed rows than logged changes gets an EXTERNAL entry, which makes every
+ * node's tailer drop its caches and reconcile its counters. The poll
+ * interval halves while changes keep arriving and doubles while idle,
+ * between {@code min-interval-ms} and {@code max-interval-ms}.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class DatabaseChangeWatcher {
 
+    static final String LEASE = "database-change-watcher";
+
     private final AppointmentRepository appointmentRepository;
-    private final WebSocketService webSocketService;
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeLogService changeLogService;
+    private final LeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
 
-    // Initialize to now to avoid fetching all historical data on startup
-    private LocalDateTime lastCheckTime = LocalDateTime.now().minusSeconds(1);
+    @Value("${app.change-watcher.min-interval-ms:500}")
+    private long minIntervalMs;
 
-    @Scheduled(fixedRate = 5000)
-    public void checkForDatabaseChanges() {
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            List<Appointment> updatedAppointments = appointmentRepository.findAllByUpdatedAtAfter(lastCheckTime);
+    @Value("${app.change-watcher.max-interval-ms:30000}")
+    private long maxIntervalMs;
 
-            if (!updatedAppointments.isEmpty()) {
-                log.info("Found {} appointments updated since {}", updatedAppointments.size(), lastCheckTime);
+    // How far back each poll re-reads, for rows whose transactions commit after a later updated_at
+    @Value("${app.change-watcher.overlap-ms:2000}")
+    private long overlapMs;
 
-                // Broadcast updates
-                webSocketService.broadcastDashboardUpdate();
+    private boolean leading;
+    private LocalDateTime watermark;
+    private long intervalMs;
+    private long nextPollAt;
+    private final Map<Long, LocalDateTime> reportedUpTo = new HashMap<>();
 
-                // Also broadcast individual appointment updates if needed
-                // for (Appointment appt : updatedAppointments) { ... }
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong externalChanges = new AtomicLong();
+    private volatile long lastChangedRows;
+    private volatile LocalDateTime lastPolledAt;
 
-                // Update the last check time to the current time used for the query
-                lastCheckTime = now;
-            }
+    public DatabaseChangeWatcher(AppointmentRepository appointmentRepository,
+            ChangeLogRepository changeLogRepository, ChangeLogService changeLogService, LeaseService leaseService,
+            PlatformTransactionManager transactionManager) {
+        this.appointmentRepository = appointmentRepository;
+        this.changeLogRepository = changeLogRepository;
+        this.changeLogService = changeLogService;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.change-watcher.tick-ms:250}")
+    public synchronized void tick() {
+        if (!leaseService.isLeader(LEASE)) {
+            leading = false;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (!leading) {
+            // A new leader starts from now; anything older was the previous leader's to report
+            leading = true;
+            watermark = LocalDateTime.now();
+            intervalMs = minIntervalMs;
+            reportedUpTo.clear();
+        }
+        if (now < nextPollAt) {
+            return;
+        }
+        try {
+            boolean changed = poll();
+            intervalMs = changed ? Math.max(minIntervalMs, intervalMs / 2)
+                    : Math.min(maxIntervalMs, intervalMs * 2);
         } catch (Exception e) {
             log.error("Error checking for database changes", e);
+            intervalMs = maxIntervalMs;
+        }
+        nextPollAt = now + intervalMs;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("leader", leaseService.isLeader(LEASE));
+        stats.put("intervalMs", intervalMs);
+        stats.put("polls", polls.get());
+        stats.put("lastChangedRows", lastChangedRows);
+        stats.put("externalChanges", externalChanges.get());
+        stats.put("lastPolledAt", lastPolledAt != null ? lastPolledAt.toString() : null);
+        return stats;
+    }
+
+    /** Returns whether any appointment changed since the last poll. */
+    private boolean poll() {
+        LocalDateTime since = watermark.minusNanos(overlapMs * 1_000_000);
+        List<Object[]> changedByHospital = appointmentRepository.countUpdatedSinceByHospital(since);
+        polls.incrementAndGet();
+        lastPolledAt = LocalDateTime.now();
+        if (changedByHospital.isEmpty()) {
+            lastChangedRows = 0;
+            return false;
+        }
+
+        // Logged changes are counted from a little earlier: the log row is written at save, updated_at at flush
+        Map<Long, Long> logged = new HashMap<>();
+        for (Object[] row : changeLogRepository.countSinceByHospital(ChangeLogEntry.EntityType.APPOINTMENT,
+                since.minusSeconds(1))) {
+            logged.put((Long) row[0], (Long) row[1]);
+        }
+        LocalDateTime newest = watermark;
+        long rows = 0;
+        boolean fresh = false;
+        List<Long> unexplained = new ArrayList<>();
+        for (Object[] row : changedByHospital) {
+            Long hospitalId = (Long) row[0];
+            long count = (Long) row[1];
+            LocalDateTime maxUpdatedAt = (LocalDateTime) row[2];
+            rows += count;
+            fresh |= maxUpdatedAt.isAfter(watermark);
+            if (maxUpdatedAt.isAfter(newest)) {
+                newest = maxUpdatedAt;
+            }
+            LocalDateTime reported = reportedUpTo.get(hospitalId);
+            if (count > logged.getOrDefault(hospitalId, 0L)
+                    && (reported == null || maxUpdatedAt.isAfter(reported))) {
+                unexplained.add(hospitalId);
+                reportedUpTo.put(hospitalId, maxUpdatedAt);
+            }
+        }
+        lastChangedRows = rows;
+        watermark = newest;
+
+        if (!unexplained.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> unexplained.forEach(changeLogService::externalChange));
+            externalChanges.addAndGet(unexplained.size());
+            log.info("Appointments changed outside the application at hospitals {}", unexplained);
         }
+        return fresh;
     }
 }
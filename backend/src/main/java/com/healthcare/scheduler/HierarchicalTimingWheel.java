@@ -0,0 +1,156 @@
+package com.healthcare.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel. Level {@code i} has {@code wheelSize} buckets of
+ * {@code tickMs * wheelSize^i} each; a timer sits in the lowest level whose
+ * range covers it and cascades one level down each time the level below
+ * wraps. Scheduling and cancelling are O(1), and each tick only touches the
+ * one bucket that is due. Not thread-safe on its own; callers synchronize.
+ */
+public class HierarchicalTimingWheel<K, T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<List<Set<Timer<K, T>>>> levels = new ArrayList<>();
+    private final Map<K, Timer<K, T>> timers = new HashMap<>();
+    private final List<Timer<K, T>> overdue = new ArrayList<>();
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMs / tickMs;
+    }
+
+    /** Schedules {@code payload} to fire at {@code dueAtMs}, replacing any timer with the same key. */
+    public void schedule(K key, long dueAtMs, T payload) {
+        cancel(key);
+        Timer<K, T> timer = new Timer<>(key, dueAtMs / tickMs, dueAtMs, payload);
+        timers.put(key, timer);
+        if (timer.dueTick <= currentTick) {
+            // This tick's bucket has already fired
+            overdue.add(timer);
+        } else {
+            place(timer);
+        }
+    }
+
+    public boolean cancel(K key) {
+        Timer<K, T> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        if (timer.bucket != null) {
+            timer.bucket.remove(timer);
+        } else {
+            overdue.remove(timer);
+        }
+        return true;
+    }
+
+    /** Advances the wheel to {@code nowMs} and returns every timer that became due, oldest first. */
+    public List<Timer<K, T>> advance(long nowMs) {
+        List<Timer<K, T>> due = new ArrayList<>(overdue);
+        overdue.clear();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Set<Timer<K, T>> bucket = bucket(0, currentTick);
+            if (!bucket.isEmpty()) {
+                due.addAll(bucket);
+                bucket.clear();
+            }
+        }
+        for (Timer<K, T> timer : due) {
+            timers.remove(timer.key);
+            timer.bucket = null;
+        }
+        return due;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    private void cascade() {
+        long span = 1;
+        int level = 0;
+        // Find the highest level whose bucket boundary falls on this tick, then re-place from the top down
+        while (level + 1 < levels.size() && currentTick % (span * wheelSize) == 0) {
+            span *= wheelSize;
+            level++;
+        }
+        for (; level >= 1; level--, span /= wheelSize) {
+            Set<Timer<K, T>> bucket = bucket(level, currentTick / span);
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            List<Timer<K, T>> moving = new ArrayList<>(bucket);
+            bucket.clear();
+            moving.forEach(this::place);
+        }
+    }
+
+    private void place(Timer<K, T> timer) {
+        if (timer.dueTick < currentTick) {
+            timer.bucket = null;
+            overdue.add(timer);
+            return;
+        }
+        long span = 1;
+        int level = 0;
+        while (timer.dueTick / span - currentTick / span >= wheelSize) {
+            span *= wheelSize;
+            level++;
+        }
+        Set<Timer<K, T>> bucket = bucket(level, timer.dueTick / span);
+        bucket.add(timer);
+        timer.bucket = bucket;
+    }
+
+    private Set<Timer<K, T>> bucket(int level, long slot) {
+        while (levels.size() <= level) {
+            List<Set<Timer<K, T>>> buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new HashSet<>());
+            }
+            levels.add(buckets);
+        }
+        return levels.get(level).get((int) (slot % wheelSize));
+    }
+
+    public static final class Timer<K, T> {
+        private final K key;
+        private final long dueTick;
+        private final long dueAtMs;
+        private final T payload;
+        private Set<Timer<K, T>> bucket;
+
+        private Timer(K key, long dueTick, long dueAtMs, T payload) {
+            this.key = key;
+            this.dueTick = dueTick;
+            this.dueAtMs = dueAtMs;
+            this.payload = payload;
+        }
+
+        public K key() {
+            return key;
+        }
+
+        public long dueAtMs() {
+            return dueAtMs;
+        }
+
+        public T payload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.healthcare.scheduler;
+
+import com.healthcare.entity.Appointment;
+import com.healthcare.notification.Reminder;
+import com.healthcare.notification.ReminderSender;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.service.LeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+
+/**
+ * Fires appointment reminders from a {@link HierarchicalTimingWheel} instead
+ * of polling the appointments table. Upcoming bookings are loaded once at
+ * startup; after that this node's bookings and cancellations add and remove
+ * timers as they commit, and ChangeLogTailer does the same for other nodes'.
+ * Every node keeps the full wheel so a new lease holder can take over at
+ * once, but only the holder of the {@value #LEASE} lease hands the
+ * reminders that just became due to the {@link ReminderSender}, in batches;
+ * the others drop them.
+ */
+@Component
+@Slf4j
+public class ReminderScheduler {
+
+    static final String LEASE = "reminder-sender";
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final AppointmentRepository appointmentRepository;
+    private final ReminderSender reminderSender;
+    private final LeaseService leaseService;
+    private final int[] offsetsMinutes;
+    private final int batchSize;
+    private final HierarchicalTimingWheel<ReminderKey, Reminder> wheel;
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    public ReminderScheduler(AppointmentRepository appointmentRepository, ReminderSender reminderSender,
+            LeaseService leaseService,
+            @Value("${app.reminders.offsets-minutes:1440,60}") int[] offsetsMinutes,
+            @Value("${app.reminders.batch-size:100}") int batchSize,
+            @Value("${app.reminders.tick-ms:1000}") long tickMs) {
+        this.appointmentRepository = appointmentRepository;
+        this.reminderSender = reminderSender;
+        this.leaseService = leaseService;
+        this.offsetsMinutes = Arrays.copyOf(offsetsMinutes, offsetsMinutes.length);
+        this.batchSize = Math.max(1, batchSize);
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadUpcoming() {
+        List<Object[]> rows = appointmentRepository.findReminderTargets(Appointment.Status.BOOKED, LocalDate.now());
+        // Reminders whose time passed while the node was down were already sent or are stale
+        schedule(rows, false);
+        log.info("Reminder wheel loaded with {} reminders for {} upcoming appointments", wheel.size(), rows.size());
+    }
+
+    /**
+     * Schedules reminders for a new booking once its transaction commits. The
+     * appointment's associations are read now, while they are still loaded.
+     */
+    public void scheduleAfterCommit(Appointment a) {
+        Long id = a.getId();
+        String trackingId = a.getTrackingId();
+        Long patientId = a.getPatient().getId();
+        String patientEmail = a.getPatient().getEmail();
+        String doctorName = a.getDoctor().getName();
+        String hospitalName = a.getHospital().getName();
+        LocalDate date = a.getAppointmentDate();
+        LocalTime time = a.getAppointmentTime();
+        afterCommit(() -> schedule(id, trackingId, patientId, patientEmail, doctorName, hospitalName,
+                date, time, true));
+    }
+
+    public void cancelAfterCommit(Long appointmentId) {
+        afterCommit(() -> cancel(appointmentId));
+    }
+
+    /** Schedules reminders for appointments booked on another node; ids no longer BOOKED are ignored. */
+    public void scheduleBooked(Collection<Long> appointmentIds) {
+        if (!appointmentIds.isEmpty()) {
+            schedule(appointmentRepository.findReminderTargetsByIds(Appointment.Status.BOOKED, appointmentIds), true);
+        }
+    }
+
+    public void cancel(Long appointmentId) {
+        synchronized (wheel) {
+            for (int offset : offsetsMinutes) {
+                if (wheel.cancel(new ReminderKey(appointmentId, offset))) {
+                    cancelled.increment();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.reminders.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<HierarchicalTimingWheel.Timer<ReminderKey, Reminder>> due;
+        synchronized (wheel) {
+            due = wheel.advance(now);
+        }
+        if (due.isEmpty()) {
+            lastLagMs.set(0);
+            return;
+        }
+        if (!leaseService.isLeader(LEASE)) {
+            // The lease holder has the same timers and sends these
+            dropped.add(due.size());
+            return;
+        }
+
+        long lag = 0;
+        List<Reminder> batch = new ArrayList<>(Math.min(due.size(), batchSize));
+        for (HierarchicalTimingWheel.Timer<ReminderKey, Reminder> timer : due) {
+            lag = Math.max(lag, now - timer.dueAtMs());
+            batch.add(timer.payload());
+            if (batch.size() == batchSize) {
+                send(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+        lastLagMs.set(lag);
+        maxLagMs.accumulateAndGet(lag, Math::max);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (wheel) {
+            stats.put("pending", wheel.size());
+        }
+        stats.put("leader", leaseService.isLeader(LEASE));
+        stats.put("scheduled", scheduled.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("fired", fired.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("sendFailures", sendFailures.sum());
+        stats.put("lastLagMs", lastLagMs.get());
+        stats.put("maxLagMs", maxLagMs.get());
+        return stats;
+    }
+
+    private void schedule(List<Object[]> rows, boolean catchUp) {
+        for (Object[] row : rows) {
+            schedule((Long) row[0], (String) row[1], (Long) row[2], (String) row[3], (String) row[4],
+                    (String) row[5], (LocalDate) row[6], (LocalTime) row[7], catchUp);
+        }
+    }
+
+    private void schedule(Long appointmentId, String trackingId, Long patientId, String patientEmail,
+            String doctorName, String hospitalName, LocalDate date, LocalTime time, boolean catchUp) {
+        long now = System.currentTimeMillis();
+        long startsAt = LocalDateTime.of(date, time).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (startsAt <= now) {
+            return;
+        }
+        synchronized (wheel) {
+            for (int offset : offsetsMinutes) {
+                long dueAt = startsAt - offset * 60_000L;
+                if (dueAt < now && !catchUp) {
+                    continue;
+                }
+                Reminder reminder = new Reminder(appointmentId, trackingId, patientId, patientEmail, doctorName,
+                        hospitalName, date, time, offset);
+                wheel.schedule(new ReminderKey(appointmentId, offset), Math.max(dueAt, now), reminder);
+                scheduled.increment();
+            }
+        }
+    }
+
+    private void send(List<Reminder> batch) {
+        try {
+            reminderSender.send(batch);
+            fired.add(batch.size());
+        } catch (Exception e) {
+            sendFailures.add(batch.size());
+            log.error("Failed to send {} reminders", batch.size(), e);
+        }
+    }
+
+    private record ReminderKey(Long appointmentId, int minutesBefore) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.healthcare.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Authenticates STOMP sessions and authorizes what they subscribe to. The
+ * SockJS handshake cannot carry headers, so the JWT comes in the CONNECT
+ * frame's Authorization header and the resulting user is kept on the
+ * session. A CONNECT without a token is let in as anonymous, but anonymous
+ * sessions cannot subscribe to anything; a bad token is refused. Patients
+ * only get their own /user/queue destinations: the broadcast topics,
+ * /topic/changes included, describe every patient's appointments.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final List<String> AUTHENTICATED = List.of("/user/queue/**");
+    private static final List<String> ADMIN = List.of("/topic/dashboard", "/topic/dashboard/**",
+            "/topic/appointments", "/topic/appointments/**", "/topic/hospital/**", "/topic/changes");
+
+    private final JwtTokenProvider tokenProvider;
+    private final CustomUserDetailsService userDetailsService;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            String header = accessor.getFirstNativeHeader("Authorization");
+            if (StringUtils.hasText(header)) {
+                accessor.setUser(authenticate(header));
+            }
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            authorizeSubscribe(accessor.getUser(), accessor.getDestination());
+        } else if (accessor.getCommand() == StompCommand.SEND) {
+            // Clients may only address the application; /topic and /queue are written by the server
+            String destination = accessor.getDestination();
+            if (accessor.getUser() == null || destination == null || !destination.startsWith("/app/")) {
+                throw new AccessDeniedException("Cannot send to " + destination);
+            }
+        }
+        return message;
+    }
+
+    private Authentication authenticate(String header) {
+        String token = header.startsWith("Bearer ") ? header.substring(7) : header;
+        if (!tokenProvider.validateToken(token)) {
+            throw new BadCredentialsException("Invalid or expired token");
+        }
+        UserDetails userDetails = userDetailsService.loadUserByUsername(tokenProvider.getEmailFromToken(token));
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    private void authorizeSubscribe(Principal user, String destination) {
+        if (destination != null && user instanceof Authentication authentication) {
+            if (matches(AUTHENTICATED, destination)) {
+                return;
+            }
+            boolean admin = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+            if (admin && matches(ADMIN, destination)) {
+                return;
+            }
+        }
+        throw new AccessDeniedException("Not allowed to subscribe to " + destination);
+    }
+
+    private boolean matches(List<String> patterns, String destination) {
+        return patterns.stream().anyMatch(pattern -> matcher.match(pattern, destination));
+    }
+}
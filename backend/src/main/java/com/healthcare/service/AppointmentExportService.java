@@ -0,0 +1,107 @@
+package com.healthcare.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.dto.AppointmentResponse;
+import com.healthcare.entity.Appointment;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.ArchivedAppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes appointments straight from forward-only result streams to the
+ * response, one row at a time, so memory use does not depend on row count.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentExportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String CSV_HEADER = "id,trackingId,patientName,doctorName,doctorSpecialization,"
+            + "hospitalName,appointmentDate,appointmentTime,status,createdAt";
+    private static final int FLUSH_EVERY = 500;
+
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void export(Format format, LocalDate from, LocalDate to, Long hospitalId, Appointment.Status status,
+            OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long written = 0;
+        // MySQL allows one streaming result per connection, so the archive is read after the hot table
+        try (Stream<AppointmentResponse> rows = appointmentRepository.streamForExport(from, to, hospitalId, status)) {
+            written = writeRows(format, rows.iterator(), writer, written);
+        }
+        try (Stream<AppointmentResponse> rows = archivedAppointmentRepository.streamForExport(from, to, hospitalId,
+                status)) {
+            writeRows(format, rows.iterator(), writer, written);
+        }
+        writer.flush();
+    }
+
+    private long writeRows(Format format, Iterator<AppointmentResponse> rows, Writer writer, long written)
+            throws IOException {
+        while (rows.hasNext()) {
+            AppointmentResponse row = rows.next();
+            if (format == Format.CSV) {
+                writeCsv(row, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+            if (++written % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        return written;
+    }
+
+    private void writeCsv(AppointmentResponse row, Writer writer) throws IOException {
+        String[] fields = {
+                String.valueOf(row.getId()), row.getTrackingId(), row.getPatientName(), row.getDoctorName(),
+                row.getDoctorSpecialization(), row.getHospitalName(), row.getAppointmentDate(),
+                row.getAppointmentTime(), row.getStatus(), row.getCreatedAt()
+        };
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvEscape(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            // Spreadsheets would run a cell like =HYPERLINK(...) as a formula; the quote makes it plain text
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
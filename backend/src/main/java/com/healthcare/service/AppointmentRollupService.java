@@ -0,0 +1,232 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.TimeSeriesPoint;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.AppointmentRollup;
+import com.healthcare.exception.BadRequestException;
+import com.healthcare.repository.AppointmentRollupRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+
+/**
+ * Keeps appointment_rollups current. Bookings and cancellations add to
+ * per-minute deltas in memory once their transactions commit; a periodic
+ * flush expands those into minute, hour and day rows and applies them with
+ * one batched upsert, so hot buckets are not row-locked per request.
+ * Time-series reads scan only the buckets in the requested range.
+ */
+@Service
+@Slf4j
+public class AppointmentRollupService {
+
+    private static final int MAX_POINTS = 2000;
+
+    private static final String UPSERT = "INSERT INTO appointment_rollups " +
+            "(granularity, bucket_start, hospital_id, doctor_id, speciality, booked, cancelled) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE booked = booked + VALUES(booked), cancelled = cancelled + VALUES(cancelled)";
+
+    private final AppointmentRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int minuteRetentionDays;
+
+    private final Map<RollupKey, Delta> pending = new ConcurrentHashMap<>();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder rowsUpserted = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    public AppointmentRollupService(AppointmentRollupRepository rollupRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.rollups.minute-retention-days:7}") int minuteRetentionDays) {
+        this.rollupRepository = rollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minuteRetentionDays = minuteRetentionDays;
+    }
+
+    public void recordBookedAfterCommit(Appointment a) {
+        record(a, new Delta(1, 0));
+    }
+
+    public void recordCancelledAfterCommit(Appointment a) {
+        record(a, new Delta(0, 1));
+    }
+
+    @Scheduled(fixedDelayString = "${app.rollups.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<RollupKey, Delta> batch = new HashMap<>();
+        for (RollupKey key : pending.keySet()) {
+            Delta delta = pending.remove(key);
+            if (delta != null) {
+                batch.put(key, delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<RollupKey, Delta> rows = new HashMap<>();
+        batch.forEach((key, delta) -> {
+            for (AppointmentRollup.Granularity granularity : AppointmentRollup.Granularity.values()) {
+                rows.merge(key.at(granularity), delta, Delta::plus);
+            }
+        });
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT,
+                    rows.entrySet().stream().map(e -> new Object[] {
+                            e.getKey().granularity().name(), Timestamp.valueOf(e.getKey().bucketStart()),
+                            e.getKey().hospitalId(), e.getKey().doctorId(), e.getKey().speciality(),
+                            e.getValue().booked(), e.getValue().cancelled() }).toList()));
+            rowsUpserted.add(rows.size());
+            flushes.increment();
+        } catch (Exception e) {
+            log.error("Failed to flush {} appointment rollup buckets, re-queueing", batch.size(), e);
+            batch.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(cron = "${app.rollups.prune-cron:0 20 3 * * *}")
+    public void pruneMinuteRollups() {
+        LocalDateTime horizon = LocalDateTime.now().minusDays(minuteRetentionDays)
+                .truncatedTo(ChronoUnit.DAYS);
+        Integer deleted = transactionTemplate.execute(status -> rollupRepository.deleteRange(
+                AppointmentRollup.Granularity.MINUTE, LocalDateTime.of(1970, 1, 1, 0, 0), horizon));
+        if (deleted != null && deleted > 0) {
+            log.info("Pruned {} minute rollups before {}", deleted, horizon);
+        }
+    }
+
+    /**
+     * Booked and cancelled counts per bucket in [from, to), optionally split by
+     * hospital, doctor or speciality.
+     */
+    public List<TimeSeriesPoint> query(String granularityName, String fromText, String toText, Long hospitalId,
+            Long doctorId, String speciality, String groupBy) {
+        AppointmentRollup.Granularity granularity;
+        try {
+            granularity = AppointmentRollup.Granularity.valueOf(granularityName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid granularity: " + granularityName
+                    + " (expected minute, hour or day)");
+        }
+        LocalDateTime to = toText != null ? parseTime(toText) : LocalDateTime.now();
+        LocalDateTime from = fromText != null ? parseTime(fromText)
+                : to.minus(granularity == AppointmentRollup.Granularity.DAY ? 30 : 24, granularity.unit());
+        from = granularity.truncate(from);
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        if (granularity.unit().between(from, to) > MAX_POINTS) {
+            throw new BadRequestException("Range spans more than " + MAX_POINTS + " "
+                    + granularity.name().toLowerCase() + " buckets");
+        }
+        String dimension = groupBy == null ? "none" : groupBy.toLowerCase();
+        if (!List.of("none", "hospital", "doctor", "speciality").contains(dimension)) {
+            throw new BadRequestException("Invalid groupBy: " + groupBy
+                    + " (expected hospital, doctor or speciality)");
+        }
+
+        Map<LocalDateTime, Map<String, long[]>> series = new TreeMap<>();
+        for (Object[] row : rollupRepository.findRange(granularity, from, to, hospitalId, doctorId,
+                speciality == null || speciality.isBlank() ? null : speciality)) {
+            String key = switch (dimension) {
+                case "hospital" -> String.valueOf(row[1]);
+                case "doctor" -> String.valueOf(row[2]);
+                case "speciality" -> (String) row[3];
+                default -> null;
+            };
+            long[] counts = series.computeIfAbsent((LocalDateTime) row[0], t -> new LinkedHashMap<>())
+                    .computeIfAbsent(key, k -> new long[2]);
+            counts[0] += ((Number) row[4]).longValue();
+            counts[1] += ((Number) row[5]).longValue();
+        }
+
+        List<TimeSeriesPoint> points = new ArrayList<>();
+        series.forEach((bucket, byKey) -> byKey.forEach((key, counts) -> points.add(TimeSeriesPoint.builder()
+                .bucketStart(bucket.toString())
+                .key(key)
+                .booked(counts[0])
+                .cancelled(counts[1])
+                .build())));
+        return points;
+    }
+
+    public int getMinuteRetentionDays() {
+        return minuteRetentionDays;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recorded", recorded.sum());
+        stats.put("pendingBuckets", pending.size());
+        stats.put("rowsUpserted", rowsUpserted.sum());
+        stats.put("flushes", flushes.sum());
+        return stats;
+    }
+
+    private void record(Appointment a, Delta delta) {
+        RollupKey key = new RollupKey(AppointmentRollup.Granularity.MINUTE,
+                AppointmentRollup.Granularity.MINUTE.truncate(LocalDateTime.now()),
+                a.getHospital().getId(), a.getDoctor().getId(), a.getDoctor().getSpecialization());
+        afterCommit(() -> add(key, delta));
+    }
+
+    private void add(RollupKey key, Delta delta) {
+        pending.merge(key, delta, Delta::plus);
+        recorded.increment();
+    }
+
+    private static LocalDateTime parseTime(String text) {
+        try {
+            return text.length() == 10 ? LocalDate.parse(text).atStartOfDay() : LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date-time: " + text);
+        }
+    }
+
+    private record RollupKey(AppointmentRollup.Granularity granularity, LocalDateTime bucketStart, Long hospitalId,
+            Long doctorId, String speciality) {
+
+        RollupKey at(AppointmentRollup.Granularity target) {
+            return new RollupKey(target, target.truncate(bucketStart), hospitalId, doctorId, speciality);
+        }
+    }
+
+    private record Delta(long booked, long cancelled) {
+
+        Delta plus(Delta other) {
+            return new Delta(booked + other.booked, cancelled + other.cancelled);
+        }
+    }
+}
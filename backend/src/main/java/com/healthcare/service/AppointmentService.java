@@ -1,32 +1,70 @@
 package com.healthcare.service;
 
+import com.healthcare.config.AppointmentSlotConstraint;
+import com.healthcare.dto.AppointmentBatchResponse;
+import com.healthcare.dto.AppointmentPageResponse;
 import com.healthcare.dto.AppointmentRequest;
 import com.healthcare.dto.AppointmentResponse;
 import com.healthcare.entity.*;
 import com.healthcare.exception.BadRequestException;
 import com.healthcare.exception.ResourceNotFoundException;
 import com.healthcare.repository.*;
+import com.healthcare.scheduler.ReminderScheduler;
 import com.healthcare.websocket.WebSocketService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AppointmentService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final Comparator<AppointmentResponse> HISTORY_ORDER = Comparator
+            .comparing((AppointmentResponse r) -> r.getCreatedAt() != null
+                    ? LocalDateTime.parse(r.getCreatedAt()) : LocalDateTime.MIN)
+            .thenComparing(AppointmentResponse::getId)
+            .reversed();
+
     private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
     private final UserRepository userRepository;
     private final DoctorRepository doctorRepository;
     private final HospitalRepository hospitalRepository;
-    private final PatientRepository patientRepository;
     private final WebSocketService webSocketService;
+    private final TrackingIdAllocator trackingIdAllocator;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final PatientProfileWriter patientProfileWriter;
+    private final WaitlistService waitlistService;
+    private final ReminderScheduler reminderScheduler;
+    private final TrackingIdLookupCache trackingIdLookupCache;
+    private final DashboardCounters dashboardCounters;
+    private final AppointmentRollupService appointmentRollupService;
+    private final DistinctPatientService distinctPatientService;
+    private final ChangeLogService changeLogService;
+    private final Validator validator;
 
     @Transactional
     public AppointmentResponse bookAppointment(Long userId, AppointmentRequest request) {
@@ -41,38 +79,6 @@ public class AppointmentService {
             Hospital hospital = hospitalRepository.findById(request.getHospitalId())
                     .orElseThrow(() -> new ResourceNotFoundException("Hospital not found"));
 
-            // Update/Create Patient Profile
-            Patient patient = patientRepository.findByUser(user)
-                    .orElse(new Patient());
-
-            patient.setUser(user);
-            String pName = (request.getPatientName() != null && !request.getPatientName().trim().isEmpty())
-                    ? request.getPatientName()
-                    : user.getName();
-            patient.setName(pName);
-
-            if (request.getDob() != null && !request.getDob().trim().isEmpty()) {
-                patient.setDob(parseDateRobustly(request.getDob()));
-            }
-
-            if (request.getGender() != null)
-                patient.setGender(request.getGender());
-            if (request.getMobileNumber() != null)
-                patient.setMobileNumber(request.getMobileNumber());
-            if (request.getAge() != null)
-                patient.setAge(request.getAge());
-
-            if (request.getLastAppointment() != null && !request.getLastAppointment().trim().isEmpty()) {
-                LocalDate lastDate = parseDateRobustly(request.getLastAppointment());
-                if (lastDate != null)
-                    patient.setLastAppointment(lastDate.atStartOfDay());
-            }
-
-            System.out.println("DEBUG: Saving patient profile for: " + pName);
-            patientRepository.save(patient);
-
-            String trackingId = generateTrackingId();
-
             LocalDate appDate = parseDateRobustly(request.getAppointmentDate());
             LocalTime appTime;
             try {
@@ -84,6 +90,16 @@ public class AppointmentService {
                         + ") or time format (" + request.getAppointmentTime() + "): " + e.getMessage());
             }
 
+            requireSlotStart(appTime);
+            if (!slotOccupancyIndex.reserveForTransaction(doctor.getId(), appDate, appTime)) {
+                throw slotTaken(doctor, appDate, appTime);
+            }
+
+            // Patient profile changes are written behind the booking, only when a field differs
+            patientProfileWriter.submitAfterCommit(user.getId(), profileUpdate(user, request));
+
+            String trackingId = trackingIdAllocator.nextTrackingId();
+
             System.out.println("DEBUG: Creating appointment for date: " + appDate);
             Appointment appointment = Appointment.builder()
                     .trackingId(trackingId)
@@ -95,12 +111,25 @@ public class AppointmentService {
                     .status(Appointment.Status.BOOKED)
                     .build();
 
-            appointment = appointmentRepository.save(appointment);
+            try {
+                // Flushed here so a booking of the same slot on another node fails inside this method
+                appointment = appointmentRepository.saveAndFlush(appointment);
+            } catch (DataIntegrityViolationException e) {
+                if (AppointmentSlotConstraint.isViolatedBy(e)) {
+                    throw slotTaken(doctor, appDate, appTime);
+                }
+                throw e;
+            }
+            long version = changeLogService.appointmentCreated(appointment);
             System.out.println("DEBUG: Appointment saved successfully with trackingId: " + trackingId);
+            reminderScheduler.scheduleAfterCommit(appointment);
+            dashboardCounters.appointmentsAddedAfterCommit(hospital.getId(), Appointment.Status.BOOKED, 1);
+            appointmentRollupService.recordBookedAfterCommit(appointment);
+            distinctPatientService.recordBookedAfterCommit(appointment);
 
             AppointmentResponse response = toResponse(appointment);
-            webSocketService.broadcastAppointmentUpdate(response);
-            webSocketService.broadcastDashboardUpdate();
+            webSocketService.broadcastAppointmentUpdate(appointment, version);
+            webSocketService.broadcastDashboardUpdate(hospital.getId());
 
             return response;
         } catch (BadRequestException | ResourceNotFoundException e) {
@@ -113,6 +142,197 @@ public class AppointmentService {
         }
     }
 
+    /**
+     * Books a batch on behalf of an admin. Each row names its patient by
+     * {@code patientId} or {@code patientEmail} of an existing patient; a
+     * row naming nobody registered fails on its own, since an account made
+     * here would take the email from the person who later signs up with it.
+     * The row's profile fields go through the same write-behind path as a
+     * single booking.
+     */
+    @Transactional
+    public AppointmentBatchResponse bookAppointments(Long userId, List<AppointmentRequest> requests) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+
+        Map<Long, User> patientsById = userRepository.findAllById(requests.stream()
+                .map(AppointmentRequest::getPatientId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, User> patientsByEmail = userRepository.findByEmailIn(requests.stream()
+                .filter(r -> r.getPatientId() == null)
+                .map(AppointmentService::patientEmail).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(u -> normalizeEmail(u.getEmail()), Function.identity(),
+                        (a, b) -> a));
+
+        Map<Long, Doctor> doctors = doctorRepository.findAllById(requests.stream()
+                .map(AppointmentRequest::getDoctorId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        Map<Long, Hospital> hospitals = hospitalRepository.findAllById(requests.stream()
+                .map(AppointmentRequest::getHospitalId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Hospital::getId, Function.identity()));
+
+        AppointmentBatchResponse.ItemResult[] results = new AppointmentBatchResponse.ItemResult[requests.size()];
+        List<Appointment> accepted = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            AppointmentRequest item = requests.get(i);
+            try {
+                Set<ConstraintViolation<AppointmentRequest>> violations = validator.validate(item);
+                if (!violations.isEmpty()) {
+                    throw new BadRequestException(violations.iterator().next().getMessage());
+                }
+                Doctor doctor = doctors.get(item.getDoctorId());
+                if (doctor == null)
+                    throw new BadRequestException("Doctor not found: " + item.getDoctorId());
+                Hospital hospital = hospitals.get(item.getHospitalId());
+                if (hospital == null)
+                    throw new BadRequestException("Hospital not found: " + item.getHospitalId());
+
+                LocalDate appDate = parseDateRobustly(item.getAppointmentDate());
+                LocalTime appTime = parseTime(item.getAppointmentTime());
+                if (appDate == null || appTime == null) {
+                    throw new BadRequestException("Invalid appointment date (" + item.getAppointmentDate()
+                            + ") or time format (" + item.getAppointmentTime() + ")");
+                }
+                requireSlotStart(appTime);
+                User patient = findBatchPatient(item, patientsById, patientsByEmail);
+                if (!slotOccupancyIndex.reserveForTransaction(doctor.getId(), appDate, appTime)) {
+                    throw slotTaken(doctor, appDate, appTime);
+                }
+
+                patientProfileWriter.submitAfterCommit(patient.getId(), profileUpdate(patient, item));
+
+                accepted.add(Appointment.builder()
+                        .trackingId(trackingIdAllocator.nextTrackingId())
+                        .patient(patient)
+                        .doctor(doctor)
+                        .hospital(hospital)
+                        .appointmentDate(appDate)
+                        .appointmentTime(appTime)
+                        .status(Appointment.Status.BOOKED)
+                        .build());
+                acceptedIndexes.add(i);
+            } catch (BadRequestException e) {
+                results[i] = AppointmentBatchResponse.ItemResult.builder()
+                        .index(i).success(false).error(e.getMessage()).build();
+            }
+        }
+
+        // Pooled sequence IDs let Hibernate send these as JDBC batches
+        List<Appointment> saved;
+        try {
+            saved = appointmentRepository.saveAll(accepted);
+            appointmentRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (AppointmentSlotConstraint.isViolatedBy(e)) {
+                // The batch shares one transaction, which a failed flush has already doomed
+                throw new BadRequestException("A requested slot was booked on another node meanwhile; "
+                        + "no appointments in this batch were booked");
+            }
+            throw e;
+        }
+        List<Long> versions = changeLogService.appointmentsCreated(saved);
+        Map<Long, Long> bookedPerHospital = saved.stream()
+                .collect(Collectors.groupingBy(a -> a.getHospital().getId(), Collectors.counting()));
+        bookedPerHospital.forEach((hospitalId, count) ->
+                dashboardCounters.appointmentsAddedAfterCommit(hospitalId, Appointment.Status.BOOKED, count));
+        List<AppointmentResponse> booked = new ArrayList<>(saved.size());
+        for (int j = 0; j < saved.size(); j++) {
+            reminderScheduler.scheduleAfterCommit(saved.get(j));
+            appointmentRollupService.recordBookedAfterCommit(saved.get(j));
+            distinctPatientService.recordBookedAfterCommit(saved.get(j));
+            AppointmentResponse response = toResponse(saved.get(j));
+            booked.add(response);
+            int index = acceptedIndexes.get(j);
+            results[index] = AppointmentBatchResponse.ItemResult.builder()
+                    .index(index).success(true).appointment(response).build();
+        }
+
+        if (!booked.isEmpty()) {
+            webSocketService.broadcastAppointmentBatch(saved, versions);
+            bookedPerHospital.keySet().forEach(webSocketService::broadcastDashboardUpdate);
+        }
+
+        return AppointmentBatchResponse.builder()
+                .requested(requests.size())
+                .succeeded(booked.size())
+                .failed(requests.size() - booked.size())
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /** The existing patient a batch row names, by id or by email in any case. */
+    private static User findBatchPatient(AppointmentRequest item, Map<Long, User> patientsById,
+            Map<String, User> patientsByEmail) {
+        if (item.getPatientId() != null) {
+            User patient = patientsById.get(item.getPatientId());
+            if (patient == null || patient.getRole() != User.Role.PATIENT) {
+                throw new BadRequestException("Patient not found: " + item.getPatientId());
+            }
+            return patient;
+        }
+        String email = patientEmail(item);
+        if (email == null) {
+            throw new BadRequestException("A patientId or patientEmail is required");
+        }
+        User patient = patientsByEmail.get(email);
+        if (patient == null) {
+            throw new BadRequestException("No patient is registered as " + item.getPatientEmail().trim());
+        }
+        if (patient.getRole() != User.Role.PATIENT) {
+            throw new BadRequestException("Not a patient account: " + item.getPatientEmail().trim());
+        }
+        return patient;
+    }
+
+    // The email column compares case-insensitively, so batch lookups must too
+    private static String patientEmail(AppointmentRequest item) {
+        String email = item.getPatientEmail();
+        return email != null && !email.trim().isEmpty() ? normalizeEmail(email) : null;
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private PatientProfileUpdate profileUpdate(User patient, AppointmentRequest request) {
+        String name = (request.getPatientName() != null && !request.getPatientName().trim().isEmpty())
+                ? request.getPatientName()
+                : patient.getName();
+        LocalDate lastDate = parseDateRobustly(request.getLastAppointment());
+        return new PatientProfileUpdate(
+                name,
+                parseDateRobustly(request.getDob()),
+                request.getGender(),
+                request.getMobileNumber(),
+                request.getAge(),
+                lastDate != null ? lastDate.atStartOfDay() : null);
+    }
+
+    private static BadRequestException slotTaken(Doctor doctor, LocalDate date, LocalTime time) {
+        return new BadRequestException("Dr. " + doctor.getName() + " is already booked at " + time + " on " + date);
+    }
+
+    /** Anything else would share a SlotOccupancyIndex slot with a booking the unique index allows. */
+    private static void requireSlotStart(LocalTime time) {
+        if (!SlotOccupancyIndex.isSlotStart(time)) {
+            throw new BadRequestException("Appointments start every " + SlotOccupancyIndex.SLOT_MINUTES
+                    + " minutes; " + time + " is not a slot start");
+        }
+    }
+
+    private LocalTime parseTime(String timeStr) {
+        if (timeStr == null || timeStr.trim().isEmpty())
+            return null;
+        try {
+            return LocalTime.parse(timeStr.trim());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     private LocalDate parseDateRobustly(String dateStr) {
         if (dateStr == null || dateStr.trim().isEmpty())
             return null;
@@ -127,59 +347,127 @@ public class AppointmentService {
     }
 
     public AppointmentResponse getByTrackingId(String trackingId) {
-        Appointment appointment = appointmentRepository.findByTrackingId(trackingId)
+        return trackingIdLookupCache.lookup(trackingId, id -> appointmentRepository.findResponseByTrackingId(id)
+                        .or(() -> archivedAppointmentRepository.findResponseByTrackingId(id)))
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Appointment not found with tracking ID: " + trackingId));
-        return toResponse(appointment);
     }
 
-    public List<AppointmentResponse> getByPatientId(Long patientId) {
-        return appointmentRepository.findByPatientIdOrderByCreatedAtDesc(patientId)
-                .stream().map(this::toResponse).toList();
+    /**
+     * Keyset page of a patient's history, newest first. The cursor encodes the
+     * (createdAt, id) of the last row served, so every page is an index range
+     * scan on idx_appointments_patient_created regardless of history length.
+     */
+    public AppointmentPageResponse getPatientHistory(Long patientId, String scope, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        LocalDate today = LocalDate.now();
+        LocalDate fromDate = null;
+        LocalDate beforeDate = null;
+        switch (scope == null ? "all" : scope.toLowerCase()) {
+            case "upcoming" -> fromDate = today;
+            case "past" -> beforeDate = today;
+            case "all" -> {
+            }
+            default -> throw new BadRequestException("Invalid scope: " + scope + " (expected upcoming, past or all)");
+        }
+
+        LocalDateTime cursorCreatedAt = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = decoded.split("\\|");
+                cursorCreatedAt = LocalDateTime.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (Exception e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+
+        List<AppointmentResponse> rows = appointmentRepository.findPatientPage(patientId, fromDate, beforeDate,
+                cursorCreatedAt, cursorId, PageRequest.of(0, pageSize + 1));
+        if (fromDate == null) {
+            // Archived rows are all in the past; merge them in on the same keyset
+            List<AppointmentResponse> archived = archivedAppointmentRepository.findPatientPage(patientId,
+                    beforeDate, cursorCreatedAt, cursorId, PageRequest.of(0, pageSize + 1));
+            if (!archived.isEmpty()) {
+                rows = Stream.concat(rows.stream(), archived.stream())
+                        .sorted(HISTORY_ORDER)
+                        .limit(pageSize + 1)
+                        .toList();
+            }
+        }
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            AppointmentResponse last = rows.get(rows.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return AppointmentPageResponse.builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
     }
 
     public List<AppointmentResponse> getRecentAppointments() {
-        return appointmentRepository.findTop10ByOrderByCreatedAtDesc()
-                .stream().map(this::toResponse).toList();
+        return appointmentRepository.findRecentResponses(PageRequest.of(0, 10));
     }
 
     @Transactional
     public AppointmentResponse cancelAppointment(Long id) {
-        Appointment appointment = appointmentRepository.findById(id)
+        Appointment appointment = appointmentRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found"));
 
         if (appointment.getStatus() == Appointment.Status.CANCELLED) {
             throw new BadRequestException("Appointment is already cancelled");
         }
 
+        Appointment.Status previous = appointment.getStatus();
+        boolean wasBooked = previous == Appointment.Status.BOOKED;
         appointment.setStatus(Appointment.Status.CANCELLED);
-        appointment = appointmentRepository.save(appointment);
+        // Flushed before a backfill inserts into the same slot, which the unique slot index would refuse
+        appointment = appointmentRepository.saveAndFlush(appointment);
+        long version = changeLogService.appointmentUpdated(appointment, previous);
+        Long hospitalId = appointment.getHospital().getId();
+        dashboardCounters.appointmentsMovedAfterCommit(hospitalId, previous, Appointment.Status.CANCELLED, 1);
+        appointmentRollupService.recordCancelledAfterCommit(appointment);
+        reminderScheduler.cancelAfterCommit(appointment.getId());
+        trackingIdLookupCache.invalidate(appointment.getTrackingId());
+
+        // A waiting patient takes over the freed slot, which then stays occupied
+        Appointment backfilled = wasBooked ? waitlistService.backfill(appointment) : null;
+        if (wasBooked && backfilled == null) {
+            slotOccupancyIndex.releaseAfterCommit(appointment.getDoctor().getId(),
+                    appointment.getAppointmentDate(), appointment.getAppointmentTime());
+        }
 
         AppointmentResponse response = toResponse(appointment);
-        webSocketService.broadcastAppointmentUpdate(response);
-        webSocketService.broadcastDashboardUpdate();
+        webSocketService.broadcastAppointmentUpdate(appointment, version);
+        if (backfilled != null) {
+            long backfilledVersion = changeLogService.appointmentCreated(backfilled);
+            reminderScheduler.scheduleAfterCommit(backfilled);
+            dashboardCounters.appointmentsAddedAfterCommit(hospitalId, Appointment.Status.BOOKED, 1);
+            appointmentRollupService.recordBookedAfterCommit(backfilled);
+            distinctPatientService.recordBookedAfterCommit(backfilled);
+            AppointmentResponse backfilledResponse = toResponse(backfilled);
+            webSocketService.broadcastAppointmentUpdate(backfilled, backfilledVersion);
+            webSocketService.notifyWaitlistBackfill(backfilled.getPatient().getEmail(), backfilledResponse);
+        }
+        webSocketService.broadcastDashboardUpdate(hospitalId);
 
         return response;
     }
 
-    private String generateTrackingId() {
-        Long maxId = appointmentRepository.findMaxId();
-        long nextNum = (maxId != null ? maxId : 0) + 1;
-        return String.format("HCMS-%d-%04d", Year.now().getValue(), nextNum);
-    }
-
     private AppointmentResponse toResponse(Appointment a) {
-        return AppointmentResponse.builder()
-                .id(a.getId())
-                .trackingId(a.getTrackingId())
-                .patientName(a.getPatient().getName())
-                .doctorName(a.getDoctor().getName())
-                .doctorSpecialization(a.getDoctor().getSpecialization())
-                .hospitalName(a.getHospital().getName())
-                .appointmentDate(a.getAppointmentDate().toString())
-                .appointmentTime(a.getAppointmentTime().format(DateTimeFormatter.ofPattern("HH:mm")))
-                .status(a.getStatus().name())
-                .createdAt(a.getCreatedAt() != null ? a.getCreatedAt().toString() : null)
-                .build();
+        return new AppointmentResponse(a.getId(), a.getTrackingId(), a.getPatient().getName(),
+                a.getDoctor().getName(), a.getDoctor().getSpecialization(), a.getHospital().getName(),
+                a.getAppointmentDate(), a.getAppointmentTime(), a.getStatus(), a.getCreatedAt());
     }
 }
@@ -22,6 +22,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final DashboardCounters dashboardCounters;
 
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -36,6 +37,7 @@ public class AuthService {
                 .build();
 
         userRepository.save(user);
+        dashboardCounters.patientsChangedAfterCommit(1);
 
         String token = tokenProvider.generateTokenFromEmail(user.getEmail());
 
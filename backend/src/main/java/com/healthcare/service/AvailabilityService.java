@@ -0,0 +1,123 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.AvailableSlot;
+import com.healthcare.exception.BadRequestException;
+import com.healthcare.repository.DoctorRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answers "earliest free slot" searches across doctors from memory: a
+ * directory of doctor, hospital and city plus the per-day bitmaps in
+ * {@link SlotOccupancyIndex}, which bookings and cancellations keep current.
+ */
+@Service
+@Slf4j
+public class AvailabilityService {
+
+    private static final int MAX_RESULTS = 50;
+    private static final int MAX_RANGE_DAYS = 31;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final DoctorRepository doctorRepository;
+    private final SlotOccupancyIndex slotOccupancyIndex;
+    private final int firstWorkingSlot;
+    private final int endWorkingSlot;
+    private final long[] workingMask = new long[2];
+
+    private volatile List<DirectoryEntry> directory = List.of();
+
+    public AvailabilityService(DoctorRepository doctorRepository, SlotOccupancyIndex slotOccupancyIndex,
+            @Value("${app.availability.day-start:09:00}") String dayStart,
+            @Value("${app.availability.day-end:17:00}") String dayEnd) {
+        this.doctorRepository = doctorRepository;
+        this.slotOccupancyIndex = slotOccupancyIndex;
+        this.firstWorkingSlot = SlotOccupancyIndex.slotOf(LocalTime.parse(dayStart));
+        this.endWorkingSlot = SlotOccupancyIndex.slotOf(LocalTime.parse(dayEnd));
+        for (int slot = firstWorkingSlot; slot < endWorkingSlot; slot++) {
+            workingMask[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshDirectory() {
+        List<DirectoryEntry> entries = new ArrayList<>();
+        for (Object[] row : doctorRepository.findDirectoryEntries()) {
+            entries.add(new DirectoryEntry((Long) row[0], (String) row[1], (String) row[2],
+                    (Long) row[3], (String) row[4], (String) row[5]));
+        }
+        directory = List.copyOf(entries);
+        log.debug("Availability directory loaded with {} doctors", entries.size());
+    }
+
+    public List<AvailableSlot> search(String specialization, String city, LocalDate from, LocalDate to, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate start = from != null && from.isAfter(now.toLocalDate()) ? from : now.toLocalDate();
+        LocalDate end = to != null ? to : start.plusDays(7);
+        if (end.isBefore(start)) {
+            throw new BadRequestException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(start, end) > MAX_RANGE_DAYS) {
+            throw new BadRequestException("Search range may span at most " + MAX_RANGE_DAYS + " days");
+        }
+        int maxResults = Math.min(Math.max(limit, 1), MAX_RESULTS);
+
+        List<DirectoryEntry> candidates = directory.stream()
+                .filter(d -> specialization == null || specialization.isBlank()
+                        || specialization.equalsIgnoreCase(d.specialization()))
+                .filter(d -> city == null || city.isBlank() || city.equalsIgnoreCase(d.city()))
+                .toList();
+
+        List<AvailableSlot> results = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            return results;
+        }
+        long[][] free = new long[candidates.size()][];
+        for (LocalDate day = start; !day.isAfter(end) && results.size() < maxResults; day = day.plusDays(1)) {
+            for (int i = 0; i < candidates.size(); i++) {
+                long[] occupied = slotOccupancyIndex.occupancy(candidates.get(i).doctorId(), day);
+                free[i] = new long[] { ~occupied[0] & workingMask[0], ~occupied[1] & workingMask[1] };
+            }
+            int firstSlot = day.equals(now.toLocalDate())
+                    ? Math.max(firstWorkingSlot, SlotOccupancyIndex.slotOf(now.toLocalTime()) + 1)
+                    : firstWorkingSlot;
+            for (int slot = firstSlot; slot < endWorkingSlot && results.size() < maxResults; slot++) {
+                for (int i = 0; i < candidates.size() && results.size() < maxResults; i++) {
+                    if ((free[i][slot >>> 6] & (1L << slot)) != 0) {
+                        results.add(toSlot(candidates.get(i), day, slot));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private AvailableSlot toSlot(DirectoryEntry doctor, LocalDate day, int slot) {
+        LocalTime time = LocalTime.MIDNIGHT.plusMinutes((long) slot * SlotOccupancyIndex.SLOT_MINUTES);
+        return AvailableSlot.builder()
+                .doctorId(doctor.doctorId())
+                .doctorName(doctor.doctorName())
+                .specialization(doctor.specialization())
+                .hospitalId(doctor.hospitalId())
+                .hospitalName(doctor.hospitalName())
+                .city(doctor.city())
+                .date(day.toString())
+                .time(time.format(TIME_FORMAT))
+                .build();
+    }
+
+    private record DirectoryEntry(Long doctorId, String doctorName, String specialization,
+            Long hospitalId, String hospitalName, String city) {
+    }
+}
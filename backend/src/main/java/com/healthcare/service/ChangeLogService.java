@@ -0,0 +1,145 @@
+package com.healthcare.service;
+
+import com.healthcare.config.NodeIdentity;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.ChangeLogEntry;
+import com.healthcare.repository.ChangeLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Appends to change_log. Callers invoke these inside the transaction that
+ * makes the change, so an entry exists exactly when its change committed.
+ */
+@Service
+@Slf4j
+public class ChangeLogService {
+
+    private static final int PRUNE_CHUNK = 5000;
+
+    private static final String INSERT_TRANSITIONED = "INSERT INTO change_log " +
+            "(entity_type, entity_id, action, hospital_id, tracking_id, status, previous_status, doctor_id, " +
+            "appointment_date, appointment_time, origin, created_at) " +
+            "SELECT 'APPOINTMENT', a.id, 'UPDATED', a.hospital_id, a.tracking_id, a.status, ?, a.doctor_id, " +
+            "a.appointment_date, a.appointment_time, ?, ? " +
+            "FROM appointments a WHERE a.id IN (%s) ORDER BY a.id";
+
+    private final ChangeLogRepository changeLogRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NodeIdentity nodeIdentity;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionHours;
+
+    public ChangeLogService(ChangeLogRepository changeLogRepository, JdbcTemplate jdbcTemplate,
+            NodeIdentity nodeIdentity, PlatformTransactionManager transactionManager,
+            @Value("${app.change-log.retention-hours:72}") int retentionHours) {
+        this.changeLogRepository = changeLogRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeIdentity = nodeIdentity;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionHours = retentionHours;
+    }
+
+    /** Returns the entry's sequence, which doubles as the appointment's version in delta messages. */
+    public long appointmentCreated(Appointment a) {
+        return changeLogRepository.save(appointmentEntry(a, ChangeLogEntry.Action.CREATED)).getId();
+    }
+
+    /** Returns the sequences in the order of {@code appointments}. */
+    public List<Long> appointmentsCreated(List<Appointment> appointments) {
+        return changeLogRepository.saveAll(appointments.stream()
+                .map(a -> appointmentEntry(a, ChangeLogEntry.Action.CREATED)).toList())
+                .stream().map(ChangeLogEntry::getId).toList();
+    }
+
+    public long appointmentUpdated(Appointment a, Appointment.Status previous) {
+        ChangeLogEntry entry = appointmentEntry(a, ChangeLogEntry.Action.UPDATED);
+        entry.setPreviousStatus(previous.name());
+        return changeLogRepository.save(entry).getId();
+    }
+
+    /**
+     * Logs the rows a set-based status update just moved out of {@code from},
+     * given by id, with one INSERT ... SELECT. The caller holds their row
+     * locks, so each entry carries the status that update wrote.
+     */
+    public int appointmentsTransitioned(List<Long> ids, Appointment.Status from) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Object[] args = new Object[ids.size() + 3];
+        args[0] = from.name();
+        args[1] = nodeIdentity.getId();
+        args[2] = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < ids.size(); i++) {
+            args[i + 3] = ids.get(i);
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update(INSERT_TRANSITIONED.formatted(placeholders), args);
+    }
+
+    public void doctorChanged(Long doctorId, Long hospitalId, ChangeLogEntry.Action action) {
+        changeLogRepository.save(entry(ChangeLogEntry.EntityType.DOCTOR, doctorId, action, hospitalId));
+    }
+
+    public void hospitalChanged(Long hospitalId, ChangeLogEntry.Action action) {
+        changeLogRepository.save(entry(ChangeLogEntry.EntityType.HOSPITAL, hospitalId, action, hospitalId));
+    }
+
+    /** Records that a hospital's appointments were changed by something that does not write the log. */
+    public void externalChange(Long hospitalId) {
+        changeLogRepository.save(entry(ChangeLogEntry.EntityType.HOSPITAL, hospitalId,
+                ChangeLogEntry.Action.EXTERNAL, hospitalId));
+    }
+
+    /** Deletes entries older than the retention period, oldest first, a chunk per transaction. */
+    @Scheduled(cron = "${app.change-log.prune-cron:0 40 3 * * *}")
+    public void prune() {
+        Long lastId = changeLogRepository.findLastIdBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (lastId == null) {
+            return;
+        }
+        long from = changeLogRepository.findMinId() - 1;
+        int deleted = 0;
+        while (from < lastId) {
+            long afterId = from;
+            long upToId = Math.min(from + PRUNE_CHUNK, lastId);
+            Integer rows = transactionTemplate.execute(status -> changeLogRepository.deleteRange(afterId, upToId));
+            deleted += rows != null ? rows : 0;
+            from = upToId;
+        }
+        log.info("Pruned {} change log entries up to sequence {}", deleted, lastId);
+    }
+
+    private ChangeLogEntry appointmentEntry(Appointment a, ChangeLogEntry.Action action) {
+        ChangeLogEntry entry = entry(ChangeLogEntry.EntityType.APPOINTMENT, a.getId(), action,
+                a.getHospital().getId());
+        entry.setTrackingId(a.getTrackingId());
+        entry.setStatus(a.getStatus().name());
+        entry.setDoctorId(a.getDoctor().getId());
+        entry.setAppointmentDate(a.getAppointmentDate());
+        entry.setAppointmentTime(a.getAppointmentTime());
+        return entry;
+    }
+
+    private ChangeLogEntry entry(ChangeLogEntry.EntityType type, Long entityId, ChangeLogEntry.Action action,
+            Long hospitalId) {
+        return ChangeLogEntry.builder()
+                .entityType(type)
+                .entityId(entityId)
+                .action(action)
+                .hospitalId(hospitalId)
+                .origin(nodeIdentity.getId())
+                .build();
+    }
+}
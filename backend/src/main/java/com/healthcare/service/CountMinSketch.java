@@ -0,0 +1,122 @@
+package com.healthcare.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch over long keys. Estimates never undercount; with width w
+ * they overcount by at most about {@code e/w} of the total added, with
+ * probability {@code 1 - e^-depth}. Sketches of the same shape add up
+ * cell by cell, which is how windows are merged. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL };
+
+    private final int depth;
+    private final int width;
+    private final long[][] counts;
+    private long total;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length || width < 1) {
+            throw new IllegalArgumentException("depth must be 1.." + SEEDS.length + " and width positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counts = new long[depth][width];
+    }
+
+    /** Adds {@code n} occurrences of {@code key} and returns its new estimate. */
+    public long add(long key, long n) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long[] cells = counts[row];
+            int cell = index(key, row);
+            cells[cell] += n;
+            estimate = Math.min(estimate, cells[cell]);
+        }
+        total += n;
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row][index(key, row)]);
+        }
+        return estimate;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different shapes");
+        }
+        for (int row = 0; row < depth; row++) {
+            long[] cells = counts[row];
+            long[] otherCells = other.counts[row];
+            for (int cell = 0; cell < width; cell++) {
+                cells[cell] += otherCells[cell];
+            }
+        }
+        total += other.total;
+    }
+
+    public void clear() {
+        for (long[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(depth);
+        out.writeInt(width);
+        out.writeLong(total);
+        for (long[] row : counts) {
+            for (long value : row) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    /** Reads counts written by {@link #writeTo} into this sketch, which must have the same shape. */
+    public void readFrom(DataInputStream in) throws IOException {
+        int storedDepth = in.readInt();
+        int storedWidth = in.readInt();
+        if (storedDepth != depth || storedWidth != width) {
+            throw new IOException("Stored sketch is " + storedDepth + "x" + storedWidth
+                    + ", expected " + depth + "x" + width);
+        }
+        total = in.readLong();
+        for (long[] row : counts) {
+            for (int cell = 0; cell < width; cell++) {
+                row[cell] = in.readLong();
+            }
+        }
+    }
+
+    private int index(long key, int row) {
+        long h = (key + SEEDS[row]) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= SEEDS[(row + 1) % SEEDS.length] | 1;
+        h ^= h >>> 29;
+        return (int) Math.floorMod(h, (long) width);
+    }
+}
@@ -0,0 +1,241 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.DashboardStats;
+import com.healthcare.dto.HospitalDashboardStats;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.User;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.DoctorRepository;
+import com.healthcare.repository.HospitalRepository;
+import com.healthcare.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+
+/**
+ * In-memory dashboard totals. Seeded from the database at startup, moved by
+ * the service write paths once their transactions commit and by
+ * ChangeLogTailer for appointment changes made on other nodes, and reconciled
+ * against the tables periodically so writes that bypass the services
+ * (other tools, archival, cascades) cannot leave them wrong for long.
+ * Appointment and doctor totals are also kept per hospital, so a write only
+ * touches the counters of the hospital it belongs to.
+ */
+@Component
+@Slf4j
+public class DashboardCounters {
+
+    private final HospitalRepository hospitalRepository;
+    private final DoctorRepository doctorRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final UserRepository userRepository;
+
+    private final LongAdder hospitals = new LongAdder();
+    private final LongAdder doctors = new LongAdder();
+    private final LongAdder patients = new LongAdder();
+    private final Map<Appointment.Status, LongAdder> appointments = newStatusCounters();
+    private final Map<Long, HospitalCounters> byHospital = new ConcurrentHashMap<>();
+
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong lastDrift = new AtomicLong();
+    private volatile LocalDateTime lastReconciledAt;
+
+    public DashboardCounters(HospitalRepository hospitalRepository, DoctorRepository doctorRepository,
+            AppointmentRepository appointmentRepository, UserRepository userRepository) {
+        this.hospitalRepository = hospitalRepository;
+        this.doctorRepository = doctorRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.userRepository = userRepository;
+    }
+
+    public DashboardStats snapshot() {
+        long booked = appointments.get(Appointment.Status.BOOKED).sum();
+        long completed = appointments.get(Appointment.Status.COMPLETED).sum();
+        long cancelled = appointments.get(Appointment.Status.CANCELLED).sum();
+        return DashboardStats.builder()
+                .totalHospitals(hospitals.sum())
+                .totalDoctors(doctors.sum())
+                .totalAppointments(booked + completed + cancelled)
+                .bookedAppointments(booked)
+                .completedAppointments(completed)
+                .cancelledAppointments(cancelled)
+                .totalPatients(patients.sum())
+                .build();
+    }
+
+    public HospitalDashboardStats snapshot(Long hospitalId) {
+        HospitalCounters counters = byHospital.get(hospitalId);
+        if (counters == null) {
+            return HospitalDashboardStats.builder().hospitalId(hospitalId).build();
+        }
+        long booked = counters.appointments().get(Appointment.Status.BOOKED).sum();
+        long completed = counters.appointments().get(Appointment.Status.COMPLETED).sum();
+        long cancelled = counters.appointments().get(Appointment.Status.CANCELLED).sum();
+        return HospitalDashboardStats.builder()
+                .hospitalId(hospitalId)
+                .totalDoctors(counters.doctors().sum())
+                .totalAppointments(booked + completed + cancelled)
+                .bookedAppointments(booked)
+                .completedAppointments(completed)
+                .cancelledAppointments(cancelled)
+                .build();
+    }
+
+    public void hospitalAddedAfterCommit() {
+        afterCommit(hospitals::increment);
+    }
+
+    public void hospitalRemovedAfterCommit(Long hospitalId) {
+        afterCommit(() -> {
+            hospitals.decrement();
+            byHospital.remove(hospitalId);
+        });
+    }
+
+    public void doctorsChangedAfterCommit(Long hospitalId, long delta) {
+        afterCommit(() -> {
+            doctors.add(delta);
+            if (hospitalId != null) {
+                hospital(hospitalId).doctors().add(delta);
+            }
+        });
+    }
+
+    public void doctorMovedAfterCommit(Long fromHospitalId, Long toHospitalId) {
+        if (Objects.equals(fromHospitalId, toHospitalId)) {
+            return;
+        }
+        afterCommit(() -> {
+            if (fromHospitalId != null) {
+                hospital(fromHospitalId).doctors().decrement();
+            }
+            if (toHospitalId != null) {
+                hospital(toHospitalId).doctors().increment();
+            }
+        });
+    }
+
+    public void patientsChangedAfterCommit(long delta) {
+        afterCommit(() -> patients.add(delta));
+    }
+
+    public void appointmentsAddedAfterCommit(Long hospitalId, Appointment.Status status, long count) {
+        afterCommit(() -> {
+            appointments.get(status).add(count);
+            hospital(hospitalId).appointments().get(status).add(count);
+        });
+    }
+
+    public void appointmentsMovedAfterCommit(Long hospitalId, Appointment.Status from, Appointment.Status to,
+            long count) {
+        afterCommit(() -> {
+            appointments.get(from).add(-count);
+            appointments.get(to).add(count);
+            HospitalCounters counters = hospital(hospitalId);
+            counters.appointments().get(from).add(-count);
+            counters.appointments().get(to).add(count);
+        });
+    }
+
+    /**
+     * Sets every counter to what the tables say. Writes committing while this
+     * runs can be counted twice or not at all; the next pass corrects that.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.dashboard.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.dashboard.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            Map<Appointment.Status, Long> byStatus = new EnumMap<>(Appointment.Status.class);
+            Map<Long, Map<Appointment.Status, Long>> byHospitalStatus = new HashMap<>();
+            for (Object[] row : appointmentRepository.countGroupedByHospitalAndStatus()) {
+                Appointment.Status status = (Appointment.Status) row[1];
+                long count = (Long) row[2];
+                byStatus.merge(status, count, Long::sum);
+                byHospitalStatus.computeIfAbsent((Long) row[0], id -> new EnumMap<>(Appointment.Status.class))
+                        .put(status, count);
+            }
+            Map<Long, Long> doctorsByHospital = new HashMap<>();
+            for (Object[] row : doctorRepository.countGroupedByHospital()) {
+                if (row[0] != null) {
+                    doctorsByHospital.put((Long) row[0], (Long) row[1]);
+                }
+            }
+
+            long drift = correct(hospitals, hospitalRepository.count())
+                    + correct(doctors, doctorRepository.count())
+                    + correct(patients, userRepository.countByRole(User.Role.PATIENT));
+            for (Appointment.Status status : Appointment.Status.values()) {
+                drift += correct(appointments.get(status), byStatus.getOrDefault(status, 0L));
+            }
+
+            Set<Long> hospitalIds = new HashSet<>(byHospital.keySet());
+            hospitalIds.addAll(byHospitalStatus.keySet());
+            hospitalIds.addAll(doctorsByHospital.keySet());
+            for (Long hospitalId : hospitalIds) {
+                HospitalCounters counters = hospital(hospitalId);
+                Map<Appointment.Status, Long> actual = byHospitalStatus.getOrDefault(hospitalId, Map.of());
+                for (Appointment.Status status : Appointment.Status.values()) {
+                    drift += correct(counters.appointments().get(status), actual.getOrDefault(status, 0L));
+                }
+                drift += correct(counters.doctors(), doctorsByHospital.getOrDefault(hospitalId, 0L));
+            }
+
+            lastDrift.set(drift);
+            lastReconciledAt = LocalDateTime.now();
+            if (reconciliations.getAndIncrement() > 0 && drift != 0) {
+                log.info("Dashboard counters corrected by {} after reconciliation", drift);
+            }
+        } catch (Exception e) {
+            log.error("Dashboard counter reconciliation failed", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hospitalsTracked", byHospital.size());
+        stats.put("reconciliations", reconciliations.get());
+        stats.put("lastDrift", lastDrift.get());
+        stats.put("lastReconciledAt", lastReconciledAt != null ? lastReconciledAt.toString() : null);
+        return stats;
+    }
+
+    private HospitalCounters hospital(Long hospitalId) {
+        return byHospital.computeIfAbsent(hospitalId, id -> new HospitalCounters(new LongAdder(), newStatusCounters()));
+    }
+
+    private static Map<Appointment.Status, LongAdder> newStatusCounters() {
+        Map<Appointment.Status, LongAdder> counters = new EnumMap<>(Appointment.Status.class);
+        for (Appointment.Status status : Appointment.Status.values()) {
+            counters.put(status, new LongAdder());
+        }
+        return counters;
+    }
+
+    private static long correct(LongAdder counter, long actual) {
+        long delta = actual - counter.sum();
+        if (delta != 0) {
+            counter.add(delta);
+        }
+        return Math.abs(delta);
+    }
+
+    private record HospitalCounters(LongAdder doctors, Map<Appointment.Status, LongAdder> appointments) {
+    }
+}
@@ -0,0 +1,385 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.DistinctPatientCount;
+import com.healthcare.dto.DistinctPatientsResponse;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.PatientSketch;
+import com.healthcare.exception.BadRequestException;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.ArchivedAppointmentRepository;
+import com.healthcare.repository.PatientSketchRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+
+/**
+ * Distinct patients per hospital and appointment day, kept as HyperLogLog
+ * sketches in patient_sketches. Bookings add to in-memory delta sketches
+ * once their transactions commit; a periodic flush merges each delta into
+ * its row under a row lock. Range questions are answered by merging day
+ * sketches held in an LRU of recently used days, so only days not yet in
+ * memory are read from the table. Because merging is idempotent, a delta
+ * that is flushed twice, or a booking seen by both the backfill and the live
+ * path, is never counted twice. Cancelled bookings are not taken back out.
+ */
+@Service
+@Slf4j
+public class DistinctPatientService {
+
+    private static final int MAX_DAYS = 731;
+    private static final int BACKFILL_BATCH = 200;
+
+    private final PatientSketchRepository sketchRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int precision;
+    private final long cacheTtlMs;
+
+    private final Map<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private final Map<LocalDate, DaySketches> days;
+    // Held while flushing, backfilling or loading days, so a load never misses a delta in flight
+    private final Object flushLock = new Object();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder sketchesFlushed = new LongAdder();
+    private final LongAdder daysLoaded = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private volatile long lastQueryMicros;
+    private volatile Map<String, Object> lastBackfill = Map.of();
+
+    public DistinctPatientService(PatientSketchRepository sketchRepository,
+            AppointmentRepository appointmentRepository,
+            ArchivedAppointmentRepository archivedAppointmentRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.distinct-patients.precision:12}") int precision,
+            @Value("${app.distinct-patients.cached-days:400}") int cachedDays,
+            @Value("${app.distinct-patients.cache-ttl-ms:60000}") long cacheTtlMs) {
+        this.sketchRepository = sketchRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.precision = precision;
+        this.cacheTtlMs = cacheTtlMs;
+        this.days = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, DaySketches> eldest) {
+                return size() > cachedDays;
+            }
+        };
+    }
+
+    public void recordBookedAfterCommit(Appointment a) {
+        Long hospitalId = a.getHospital().getId();
+        LocalDate day = a.getAppointmentDate();
+        Long patientId = a.getPatient().getId();
+        afterCommit(() -> record(hospitalId, day, patientId));
+    }
+
+    /**
+     * Distinct patients with appointments in [from, to], both inclusive, at
+     * the given hospitals or all of them, overall and per day, week or month.
+     */
+    public DistinctPatientsResponse query(LocalDate from, LocalDate to, List<Long> hospitalIds, String interval) {
+        String bucketing = interval == null ? "total" : interval.toLowerCase();
+        if (!List.of("total", "day", "week", "month").contains(bucketing)) {
+            throw new BadRequestException("Invalid interval: " + interval + " (expected total, day, week or month)");
+        }
+        if (to.isBefore(from)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new BadRequestException("Range spans more than " + MAX_DAYS + " days");
+        }
+        List<Long> hospitals = hospitalIds == null || hospitalIds.isEmpty() ? null : hospitalIds;
+
+        Map<LocalDate, DaySketches> range = daySketches(from, to);
+        long started = System.nanoTime();
+        HyperLogLog total = new HyperLogLog(precision);
+        List<DistinctPatientCount> buckets = new ArrayList<>();
+        LocalDate bucketStart = from;
+        while (!bucketStart.isAfter(to)) {
+            LocalDate next = switch (bucketing) {
+                case "day" -> bucketStart.plusDays(1);
+                case "week" -> bucketStart.with(DayOfWeek.MONDAY).plusWeeks(1);
+                case "month" -> bucketStart.withDayOfMonth(1).plusMonths(1);
+                default -> to.plusDays(1);
+            };
+            LocalDate bucketEnd = next.isAfter(to) ? to : next.minusDays(1);
+            HyperLogLog bucket = new HyperLogLog(precision);
+            for (LocalDate day = bucketStart; !day.isAfter(bucketEnd); day = day.plusDays(1)) {
+                range.get(day).mergeInto(bucket, hospitals);
+            }
+            total.merge(bucket);
+            buckets.add(DistinctPatientCount.builder()
+                    .from(bucketStart.toString())
+                    .to(bucketEnd.toString())
+                    .distinctPatients(bucket.estimate())
+                    .build());
+            bucketStart = bucketEnd.plusDays(1);
+        }
+        long distinct = total.estimate();
+        lastQueryMicros = (System.nanoTime() - started) / 1_000;
+        queries.increment();
+
+        return DistinctPatientsResponse.builder()
+                .from(from.toString())
+                .to(to.toString())
+                .hospitalIds(hospitals)
+                .interval(bucketing)
+                .distinctPatients(distinct)
+                .relativeStandardError(total.relativeStandardError())
+                .buckets(bucketing.equals("total") ? List.of() : buckets)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.distinct-patients.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            for (SketchKey key : pending.keySet()) {
+                HyperLogLog delta = pending.remove(key);
+                if (delta == null) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> mergeIntoRow(key, delta));
+                    sketchesFlushed.increment();
+                } catch (Exception e) {
+                    log.warn("Failed to flush patient sketch for hospital {} on {}, re-queueing",
+                            key.hospitalId(), key.day(), e);
+                    pending.merge(key, delta, (queued, failed) -> {
+                        queued.merge(failed);
+                        return queued;
+                    });
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /** Builds sketches for every appointment on record, the first time the service starts on a database. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (sketchRepository.count() > 0) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Map<SketchKey, HyperLogLog> built = new HashMap<>();
+            long[] visits = new long[1];
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = appointmentRepository.streamPatientVisits()) {
+                    rows.forEach(row -> visits[0] += addVisit(built, row));
+                }
+                try (Stream<Object[]> rows = archivedAppointmentRepository.streamPatientVisits()) {
+                    rows.forEach(row -> visits[0] += addVisit(built, row));
+                }
+            });
+            List<Map.Entry<SketchKey, HyperLogLog>> entries = new ArrayList<>(built.entrySet());
+            synchronized (flushLock) {
+                for (int i = 0; i < entries.size(); i += BACKFILL_BATCH) {
+                    List<Map.Entry<SketchKey, HyperLogLog>> batch =
+                            entries.subList(i, Math.min(i + BACKFILL_BATCH, entries.size()));
+                    transactionTemplate.executeWithoutResult(status ->
+                            batch.forEach(e -> mergeIntoRow(e.getKey(), e.getValue())));
+                }
+                synchronized (days) {
+                    days.clear();
+                }
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("visits", visits[0]);
+            result.put("sketches", entries.size());
+            result.put("millis", System.currentTimeMillis() - started);
+            lastBackfill = result;
+            log.info("Patient sketches backfilled: {}", result);
+        } catch (Exception e) {
+            log.error("Patient sketch backfill failed", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("precision", precision);
+        stats.put("relativeStandardError", new HyperLogLog(precision).relativeStandardError());
+        stats.put("recorded", recorded.sum());
+        stats.put("pendingSketches", pending.size());
+        stats.put("sketchesFlushed", sketchesFlushed.sum());
+        synchronized (days) {
+            stats.put("cachedDays", days.size());
+        }
+        stats.put("daysLoaded", daysLoaded.sum());
+        stats.put("queries", queries.sum());
+        stats.put("lastQueryMicros", lastQueryMicros);
+        stats.put("backfill", lastBackfill);
+        return stats;
+    }
+
+    private void record(Long hospitalId, LocalDate day, Long patientId) {
+        pending.compute(new SketchKey(day, hospitalId), (key, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog(precision);
+            target.add(patientId);
+            return target;
+        });
+        // Checked after the delta is queued, so a day being loaded right now sees one or the other
+        DaySketches cached;
+        synchronized (days) {
+            cached = days.get(day);
+        }
+        if (cached != null) {
+            cached.add(hospitalId, patientId);
+        }
+        recorded.increment();
+    }
+
+    private Map<LocalDate, DaySketches> daySketches(LocalDate from, LocalDate to) {
+        Map<LocalDate, DaySketches> range = new HashMap<>();
+        List<LocalDate> missing = new ArrayList<>();
+        long staleBefore = System.currentTimeMillis() - cacheTtlMs;
+        synchronized (days) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                DaySketches cached = days.get(day);
+                if (cached != null && cached.loadedAt >= staleBefore) {
+                    range.put(day, cached);
+                } else {
+                    missing.add(day);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            range.putAll(load(missing));
+        }
+        return range;
+    }
+
+    /**
+     * Reads the given days from the table (sketches flushed by other nodes
+     * included) and adds the deltas still queued here before caching them.
+     */
+    private Map<LocalDate, DaySketches> load(Collection<LocalDate> missing) {
+        synchronized (flushLock) {
+            Map<LocalDate, DaySketches> loaded = new HashMap<>();
+            long now = System.currentTimeMillis();
+            for (LocalDate day : missing) {
+                loaded.put(day, new DaySketches(precision, now));
+            }
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (PatientSketch row : sketchRepository.findByDayIn(missing)) {
+                    loaded.get(row.getDay()).merge(row.getHospitalId(), HyperLogLog.fromBytes(row.getRegisters()));
+                }
+            });
+            synchronized (days) {
+                for (SketchKey key : pending.keySet()) {
+                    DaySketches day = loaded.get(key.day());
+                    if (day != null) {
+                        pending.computeIfPresent(key, (k, delta) -> {
+                            day.merge(k.hospitalId(), delta);
+                            return delta;
+                        });
+                    }
+                }
+                days.putAll(loaded);
+            }
+            daysLoaded.add(loaded.size());
+            return loaded;
+        }
+    }
+
+    private void mergeIntoRow(SketchKey key, HyperLogLog delta) {
+        PatientSketch row = sketchRepository.findForUpdate(key.day(), key.hospitalId()).orElse(null);
+        if (row == null) {
+            row = PatientSketch.builder()
+                    .day(key.day())
+                    .hospitalId(key.hospitalId())
+                    .registers(delta.toBytes())
+                    .build();
+        } else {
+            HyperLogLog merged = HyperLogLog.fromBytes(row.getRegisters());
+            merged.merge(delta);
+            row.setRegisters(merged.toBytes());
+        }
+        row.setUpdatedAt(LocalDateTime.now());
+        sketchRepository.save(row);
+    }
+
+    private int addVisit(Map<SketchKey, HyperLogLog> built, Object[] row) {
+        if (row[0] == null || row[1] == null || row[2] == null) {
+            return 0;
+        }
+        built.computeIfAbsent(new SketchKey((LocalDate) row[1], (Long) row[0]), key -> new HyperLogLog(precision))
+                .add((Long) row[2]);
+        return 1;
+    }
+
+    private record SketchKey(LocalDate day, Long hospitalId) {
+    }
+
+    /** One appointment day: a sketch per hospital plus their union, kept current as bookings arrive. */
+    private static final class DaySketches {
+        private final int precision;
+        private final long loadedAt;
+        private final Map<Long, HyperLogLog> byHospital = new HashMap<>();
+        private final HyperLogLog all;
+
+        private DaySketches(int precision, long loadedAt) {
+            this.precision = precision;
+            this.loadedAt = loadedAt;
+            this.all = new HyperLogLog(precision);
+        }
+
+        private synchronized void add(Long hospitalId, long patientId) {
+            byHospital.computeIfAbsent(hospitalId, id -> new HyperLogLog(precision)).add(patientId);
+            all.add(patientId);
+        }
+
+        private synchronized void merge(Long hospitalId, HyperLogLog sketch) {
+            byHospital.computeIfAbsent(hospitalId, id -> new HyperLogLog(precision)).merge(sketch);
+            all.merge(sketch);
+        }
+
+        private synchronized void mergeInto(HyperLogLog target, List<Long> hospitalIds) {
+            if (hospitalIds == null) {
+                target.merge(all);
+                return;
+            }
+            for (Long hospitalId : hospitalIds) {
+                HyperLogLog sketch = byHospital.get(hospitalId);
+                if (sketch != null) {
+                    target.merge(sketch);
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.healthcare.service;
 
 import com.healthcare.dto.DoctorDTO;
+import com.healthcare.entity.ChangeLogEntry;
 import com.healthcare.entity.Doctor;
 import com.healthcare.entity.Hospital;
 import com.healthcare.exception.ResourceNotFoundException;
@@ -11,6 +12,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -21,6 +23,9 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final HospitalRepository hospitalRepository;
     private final com.healthcare.websocket.WebSocketService webSocketService;
+    private final AvailabilityService availabilityService;
+    private final DashboardCounters dashboardCounters;
+    private final ChangeLogService changeLogService;
 
     public List<DoctorDTO> getAllDoctors() {
         return doctorRepository.findAll().stream().map(this::toDTO).toList();
@@ -47,6 +52,7 @@ public class DoctorService {
         return toDTO(doctor);
     }
 
+    @Transactional
     public DoctorDTO createDoctor(DoctorDTO dto) {
         Hospital hospital = hospitalRepository.findById(dto.getHospitalId())
                 .orElseThrow(() -> new ResourceNotFoundException("Hospital not found with id: " + dto.getHospitalId()));
@@ -63,13 +69,18 @@ public class DoctorService {
                 .degreeCompletionDate(dto.getDegreeCompletionDate())
                 .build();
         doctor = doctorRepository.save(doctor);
-        webSocketService.broadcastDashboardUpdate();
+        changeLogService.doctorChanged(doctor.getId(), hospital.getId(), ChangeLogEntry.Action.CREATED);
+        dashboardCounters.doctorsChangedAfterCommit(hospital.getId(), 1);
+        availabilityService.refreshDirectory();
+        webSocketService.broadcastDashboardUpdate(hospital.getId());
         return toDTO(doctor);
     }
 
+    @Transactional
     public DoctorDTO updateDoctor(Long id, DoctorDTO dto) {
         Doctor doctor = doctorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + id));
+        Long previousHospitalId = doctor.getHospital() != null ? doctor.getHospital().getId() : null;
 
         if (dto.getHospitalId() != null) {
             Hospital hospital = hospitalRepository.findById(dto.getHospitalId())
@@ -96,16 +107,27 @@ public class DoctorService {
             doctor.setDegreeCompletionDate(dto.getDegreeCompletionDate());
 
         doctor = doctorRepository.save(doctor);
-        webSocketService.broadcastDashboardUpdate();
+        Long hospitalId = doctor.getHospital() != null ? doctor.getHospital().getId() : null;
+        changeLogService.doctorChanged(doctor.getId(), hospitalId, ChangeLogEntry.Action.UPDATED);
+        dashboardCounters.doctorMovedAfterCommit(previousHospitalId, hospitalId);
+        availabilityService.refreshDirectory();
+        webSocketService.broadcastDashboardUpdate(hospitalId);
+        if (previousHospitalId != null && !previousHospitalId.equals(hospitalId)) {
+            webSocketService.broadcastDashboardUpdate(previousHospitalId);
+        }
         return toDTO(doctor);
     }
 
+    @Transactional
     public void deleteDoctor(Long id) {
-        if (!doctorRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Doctor not found with id: " + id);
-        }
+        Doctor doctor = doctorRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + id));
+        Long hospitalId = doctor.getHospital() != null ? doctor.getHospital().getId() : null;
         doctorRepository.deleteById(id);
-        webSocketService.broadcastDashboardUpdate();
+        changeLogService.doctorChanged(id, hospitalId, ChangeLogEntry.Action.DELETED);
+        dashboardCounters.doctorsChangedAfterCommit(hospitalId, -1);
+        availabilityService.refreshDirectory();
+        webSocketService.broadcastDashboardUpdate(hospitalId);
     }
 
     private DoctorDTO toDTO(Doctor d) {
@@ -1,6 +1,7 @@
 package com.healthcare.service;
 
 import com.healthcare.dto.HospitalDTO;
+import com.healthcare.entity.ChangeLogEntry;
 import com.healthcare.entity.Hospital;
 import com.healthcare.exception.ResourceNotFoundException;
 import com.healthcare.repository.HospitalRepository;
@@ -10,6 +11,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -19,6 +21,9 @@ public class HospitalService {
 
     private final HospitalRepository hospitalRepository;
     private final com.healthcare.websocket.WebSocketService webSocketService;
+    private final AvailabilityService availabilityService;
+    private final DashboardCounters dashboardCounters;
+    private final ChangeLogService changeLogService;
 
     public Page<HospitalDTO> getHospitals(String state, String city, String type,
             String search, int page, int size) {
@@ -45,6 +50,7 @@ public class HospitalService {
         return toDTO(hospital);
     }
 
+    @Transactional
     public HospitalDTO createHospital(HospitalDTO dto) {
         Hospital hospital = Hospital.builder()
                 .name(dto.getName())
@@ -58,10 +64,14 @@ public class HospitalService {
                 .imageUrl(dto.getImageUrl())
                 .build();
         hospital = hospitalRepository.save(hospital);
+        changeLogService.hospitalChanged(hospital.getId(), ChangeLogEntry.Action.CREATED);
+        dashboardCounters.hospitalAddedAfterCommit();
+        availabilityService.refreshDirectory();
         webSocketService.broadcastDashboardUpdate();
         return toDTO(hospital);
     }
 
+    @Transactional
     public HospitalDTO updateHospital(Long id, HospitalDTO dto) {
         Hospital hospital = hospitalRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Hospital not found with id: " + id));
@@ -75,15 +85,21 @@ public class HospitalService {
         hospital.setInsuranceSupported(dto.getInsuranceSupported());
         hospital.setImageUrl(dto.getImageUrl());
         hospital = hospitalRepository.save(hospital);
+        changeLogService.hospitalChanged(hospital.getId(), ChangeLogEntry.Action.UPDATED);
+        availabilityService.refreshDirectory();
         webSocketService.broadcastDashboardUpdate();
         return toDTO(hospital);
     }
 
+    @Transactional
     public void deleteHospital(Long id) {
         if (!hospitalRepository.existsById(id)) {
             throw new ResourceNotFoundException("Hospital not found with id: " + id);
         }
         hospitalRepository.deleteById(id);
+        changeLogService.hospitalChanged(id, ChangeLogEntry.Action.DELETED);
+        dashboardCounters.hospitalRemovedAfterCommit(id);
+        availabilityService.refreshDirectory();
         webSocketService.broadcastDashboardUpdate();
     }
 
@@ -0,0 +1,182 @@
+package com.healthcare.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter with {@code 2^precision} registers, standard
+ * error about {@code 1.04 / sqrt(2^precision)}. Small sketches keep only
+ * their non-zero registers, sorted, and switch to a dense register array
+ * once that would be smaller. Merging takes the larger of each register,
+ * so it is commutative and idempotent: merging the same sketch twice, or in
+ * any order, gives the same result. Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final int precision;
+    private final int registerCount;
+    private byte[] dense;
+    // Non-zero registers as (index << 8 | rank), sorted by index, while sparse
+    private int[] sparse = new int[4];
+    private int sparseSize;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be 4..16");
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+    }
+
+    public void add(long value) {
+        long h = mix(value);
+        int index = (int) (h >>> (64 - precision));
+        // The guard bit caps the rank when the remaining bits are all zero
+        int rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+        set(index, rank);
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        if (other.dense != null) {
+            for (int i = 0; i < registerCount; i++) {
+                if (other.dense[i] != 0) {
+                    set(i, other.dense[i]);
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = registerCount;
+        if (dense != null) {
+            zeros = 0;
+            for (byte rank : dense) {
+                sum += 1.0 / (1L << rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xFF));
+            }
+            zeros -= sparseSize;
+            sum += zeros;
+        }
+        double alpha = switch (registerCount) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / registerCount);
+        };
+        double raw = alpha * registerCount * registerCount / sum;
+        if (raw <= 2.5 * registerCount && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty
+            return Math.round(registerCount * Math.log((double) registerCount / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    public int precision() {
+        return precision;
+    }
+
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(registerCount);
+    }
+
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.merge(this);
+        return copy;
+    }
+
+    /** Precision, encoding, then either every register or the non-zero ones as (index, rank) pairs. */
+    public byte[] toBytes() {
+        if (dense != null) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + registerCount);
+            buffer.put((byte) precision).put(DENSE).put(dense);
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 + sparseSize * 3);
+        buffer.put((byte) precision).put(SPARSE);
+        for (int i = 0; i < sparseSize; i++) {
+            buffer.putShort((short) (sparse[i] >>> 8)).put((byte) (sparse[i] & 0xFF));
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        byte encoding = buffer.get();
+        if (encoding == DENSE) {
+            sketch.dense = Arrays.copyOfRange(bytes, 2, 2 + sketch.registerCount);
+            sketch.sparse = null;
+        } else {
+            while (buffer.remaining() >= 3) {
+                sketch.set(buffer.getShort() & 0xFFFF, buffer.get());
+            }
+        }
+        return sketch;
+    }
+
+    private void set(int index, int rank) {
+        if (dense != null) {
+            if (dense[index] < rank) {
+                dense[index] = (byte) rank;
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(sparse, 0, sparseSize, index << 8);
+        int insertAt = position >= 0 ? position : -position - 1;
+        if (insertAt < sparseSize && sparse[insertAt] >>> 8 == index) {
+            if ((sparse[insertAt] & 0xFF) < rank) {
+                sparse[insertAt] = index << 8 | rank;
+            }
+            return;
+        }
+        // Three bytes per sparse register on disk; past a third of the registers dense is smaller
+        if (sparseSize + 1 > registerCount / 3) {
+            toDense();
+            set(index, rank);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparse.length * 2);
+        }
+        System.arraycopy(sparse, insertAt, sparse, insertAt + 1, sparseSize - insertAt);
+        sparse[insertAt] = index << 8 | rank;
+        sparseSize++;
+    }
+
+    private void toDense() {
+        dense = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            dense[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static long mix(long h) {
+        // murmur3 fmix64, so sequential ids spread over every register
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
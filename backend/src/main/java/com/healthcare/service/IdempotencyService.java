@@ -0,0 +1,218 @@
+package com.healthcare.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.entity.IdempotencyRecord;
+import com.healthcare.exception.BadRequestException;
+import com.healthcare.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored result of a mutation when a client retries it with the
+ * same Idempotency-Key. Completed results live in a bounded in-memory LRU
+ * backed by the idempotency_keys table; concurrent retries on this node wait
+ * for the first attempt, and the table's primary key settles races between
+ * nodes by rolling back the losing attempt.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+
+    private final Map<String, StoredResult> completed;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${app.idempotency.max-entries:10000}") int maxEntries) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResult> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Runs {@code action} at most once per (operation, principal, key). Without
+     * a key the action simply runs.
+     */
+    public <T> T execute(String operation, String principal, String key, Object request,
+            Class<T> type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        // Hashed so any principal and key fit the column; the operation stays readable
+        String scopedKey = operation + ":" + sha256(principal + ":" + key);
+        String requestHash = sha256(toJson(request));
+
+        StoredResult cached = completed.get(scopedKey);
+        if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) {
+            return replay(cached, requestHash, type);
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            if (!running.requestHash().equals(requestHash)) {
+                throw reused();
+            }
+            return type.cast(await(running.result()));
+        }
+
+        try {
+            T result = executeOnce(scopedKey, requestHash, type, action);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    @Scheduled(fixedDelay = 600_000)
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (completed) {
+            completed.values().removeIf(result -> result.expiresAt().isBefore(now));
+        }
+        int deleted = transactionTemplate.execute(status -> recordRepository.deleteExpired(now));
+        if (deleted > 0) {
+            log.debug("Evicted {} expired idempotency records", deleted);
+        }
+    }
+
+    private <T> T executeOnce(String scopedKey, String requestHash, Class<T> type, Supplier<T> action) {
+        IdempotencyRecord stored = recordRepository.findById(scopedKey).orElse(null);
+        if (stored != null && stored.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return replay(remember(scopedKey, stored), requestHash, type);
+        }
+
+        try {
+            // The record is inserted in the same transaction as the mutation it describes. It is always
+            // persisted, never merged, so a key another node committed meanwhile fails the insert and rolls
+            // the mutation back instead of being overwritten
+            return transactionTemplate.execute(status -> {
+                if (stored != null) {
+                    // Expired but not yet evicted; it would block the insert
+                    recordRepository.delete(stored);
+                    recordRepository.flush();
+                }
+                T result = action.get();
+                IdempotencyRecord record = IdempotencyRecord.builder()
+                        .key(scopedKey)
+                        .requestHash(requestHash)
+                        .responseBody(toJson(result))
+                        .expiresAt(LocalDateTime.now().plus(ttl))
+                        .build();
+                recordRepository.saveAndFlush(record);
+                remember(scopedKey, record);
+                return result;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node committed the same key first; our attempt was rolled back
+            IdempotencyRecord winner = recordRepository.findById(scopedKey).orElseThrow(() -> e);
+            return replay(remember(scopedKey, winner), requestHash, type);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> running) {
+        try {
+            return running.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BadRequestException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private StoredResult remember(String scopedKey, IdempotencyRecord record) {
+        StoredResult result = new StoredResult(record.getRequestHash(), record.getResponseBody(),
+                record.getExpiresAt());
+        completed.put(scopedKey, result);
+        return result;
+    }
+
+    private <T> T replay(StoredResult stored, String requestHash, Class<T> type) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw reused();
+        }
+        try {
+            return objectMapper.readValue(stored.responseBody(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be stored for idempotent replay", e);
+        }
+    }
+
+    private static BadRequestException reused() {
+        return new BadRequestException("Idempotency-Key was already used for a different request");
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record StoredResult(String requestHash, String responseBody, LocalDateTime expiresAt) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<Object> result) {
+    }
+}
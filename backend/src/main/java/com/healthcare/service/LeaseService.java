@@ -0,0 +1,134 @@
+package com.healthcare.service;
+
+import com.healthcare.config.NodeIdentity;
+import com.healthcare.repository.LeaderLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Leader election through leader_leases. A job asks {@link #isLeader} with a
+ * lease name; this node then tries to take that lease and keeps renewing it
+ * every {@code app.leases.renew-interval-ms}. Leadership is trusted locally
+ * only until the lease would have expired, counted from just before the
+ * renewing UPDATE, so a node that cannot reach the database stops acting as
+ * leader before another node can take over. Renewal runs on its own
+ * thread, so a scheduled job that holds a shared scheduler thread for a long
+ * run cannot delay it past the lease's expiry.
+ */
+@Service
+@Slf4j
+public class LeaseService {
+
+    private final LeaderLeaseRepository leaseRepository;
+    private final NodeIdentity nodeIdentity;
+    private final TransactionTemplate transactionTemplate;
+    private final long durationMs;
+    private final long renewIntervalMs;
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<String> wanted = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> heldUntilNanos = new ConcurrentHashMap<>();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder losses = new LongAdder();
+
+    public LeaseService(LeaderLeaseRepository leaseRepository, NodeIdentity nodeIdentity,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.leases.duration-ms:15000}") long durationMs,
+            @Value("${app.leases.renew-interval-ms:5000}") long renewIntervalMs) {
+        this.leaseRepository = leaseRepository;
+        this.nodeIdentity = nodeIdentity;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.durationMs = durationMs;
+        this.renewIntervalMs = renewIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        renewer.scheduleWithFixedDelay(this::renew, renewIntervalMs, renewIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isLeader(String name) {
+        if (wanted.add(name)) {
+            tryAcquire(name);
+        }
+        Long until = heldUntilNanos.get(name);
+        return until != null && System.nanoTime() - until < 0;
+    }
+
+    public void renew() {
+        // tryAcquire handles its own failures, so nothing escapes to cancel the schedule
+        wanted.forEach(this::tryAcquire);
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        renewer.shutdownNow();
+        for (String name : heldUntilNanos.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        leaseRepository.release(name, nodeIdentity.getId()));
+            } catch (Exception e) {
+                log.warn("Failed to release lease {}", name, e);
+            }
+        }
+        heldUntilNanos.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeIdentity.getId());
+        stats.put("durationMs", durationMs);
+        Map<String, Boolean> leases = new LinkedHashMap<>();
+        wanted.forEach(name -> leases.put(name, isLeader(name)));
+        stats.put("leader", leases);
+        stats.put("acquisitions", acquisitions.sum());
+        stats.put("losses", losses.sum());
+        return stats;
+    }
+
+    private void tryAcquire(String name) {
+        long started = System.nanoTime();
+        boolean held;
+        try {
+            Integer rows = transactionTemplate.execute(status -> {
+                leaseRepository.insertIfAbsent(name);
+                return leaseRepository.acquireOrRenew(name, nodeIdentity.getId(), durationMs);
+            });
+            held = rows != null && rows == 1;
+        } catch (Exception e) {
+            log.warn("Could not renew lease {}", name, e);
+            // Keep the local deadline; it runs out before anyone else can take the lease
+            return;
+        }
+        boolean wasHeld = heldUntilNanos.containsKey(name);
+        if (held) {
+            heldUntilNanos.put(name, started + durationMs * 1_000_000);
+            if (!wasHeld) {
+                acquisitions.increment();
+                log.info("Node {} acquired lease {}", nodeIdentity.getId(), name);
+            }
+        } else if (wasHeld) {
+            heldUntilNanos.remove(name);
+            losses.increment();
+            log.info("Node {} lost lease {}", nodeIdentity.getId(), name);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.healthcare.service;
+
+import com.healthcare.entity.Patient;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Profile fields captured from a booking request. A null field means "leave
+ * as is", matching how bookAppointment always treated missing values.
+ */
+public record PatientProfileUpdate(String name, LocalDate dob, String gender, String mobileNumber,
+        Integer age, LocalDateTime lastAppointment) {
+
+    /** Combines two queued updates; fields set on {@code newer} win. */
+    public PatientProfileUpdate mergeWith(PatientProfileUpdate newer) {
+        return new PatientProfileUpdate(
+                newer.name != null ? newer.name : name,
+                newer.dob != null ? newer.dob : dob,
+                newer.gender != null ? newer.gender : gender,
+                newer.mobileNumber != null ? newer.mobileNumber : mobileNumber,
+                newer.age != null ? newer.age : age,
+                newer.lastAppointment != null ? newer.lastAppointment : lastAppointment);
+    }
+
+    /** Copies the differing fields onto the entity and reports whether any changed. */
+    public boolean applyTo(Patient patient) {
+        boolean changed = false;
+        if (name != null && !name.equals(patient.getName())) {
+            patient.setName(name);
+            changed = true;
+        }
+        if (dob != null && !dob.equals(patient.getDob())) {
+            patient.setDob(dob);
+            changed = true;
+        }
+        if (gender != null && !gender.equals(patient.getGender())) {
+            patient.setGender(gender);
+            changed = true;
+        }
+        if (mobileNumber != null && !mobileNumber.equals(patient.getMobileNumber())) {
+            patient.setMobileNumber(mobileNumber);
+            changed = true;
+        }
+        if (age != null && !age.equals(patient.getAge())) {
+            patient.setAge(age);
+            changed = true;
+        }
+        if (lastAppointment != null && !lastAppointment.equals(patient.getLastAppointment())) {
+            patient.setLastAppointment(lastAppointment);
+            changed = true;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,179 @@
+package com.healthcare.service;
+
+import com.healthcare.entity.Patient;
+import com.healthcare.repository.PatientRepository;
+import com.healthcare.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+
+/**
+ * Write-behind stage for patient profiles. Bookings enqueue the fields they
+ * carry; repeated updates for the same user coalesce in memory and a
+ * background flush loads the batch's rows and writes only the patients whose
+ * fields actually differ from them, in one batched transaction. Those rows
+ * are the only thing compared against, since another node may have written
+ * any of them since this one last saw it. When that transaction fails, each
+ * profile is retried on its own so one bad row cannot hold back the rest,
+ * and a profile that keeps failing by itself is dropped after
+ * {@value #MAX_ATTEMPTS} attempts. Failures that look transient, such as a lost connection, are
+ * retried without counting.
+ */
+@Service
+@Slf4j
+public class PatientProfileWriter {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final PatientRepository patientRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, PatientProfileUpdate> pending = new ConcurrentHashMap<>();
+    // Failed attempts per user, counted only while the update fails on its own
+    private final Map<Long, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder retriedAlone = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public PatientProfileWriter(PatientRepository patientRepository, UserRepository userRepository,
+            PlatformTransactionManager transactionManager) {
+        this.patientRepository = patientRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Queues the update once the caller's transaction commits, so a failed
+     * booking leaves the profile untouched just as before.
+     */
+    public void submitAfterCommit(Long userId, PatientProfileUpdate update) {
+        afterCommit(() -> submit(userId, update));
+    }
+
+    public void submit(Long userId, PatientProfileUpdate update) {
+        submitted.increment();
+        pending.merge(userId, update, (queued, newer) -> {
+            coalesced.increment();
+            return queued.mergeWith(newer);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.patient-profile.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, PatientProfileUpdate> batch = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            PatientProfileUpdate update = pending.remove(userId);
+            if (update != null) {
+                batch.put(userId, update);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+            flushes.increment();
+            failedAttempts.keySet().removeAll(batch.keySet());
+        } catch (Exception e) {
+            if (batch.size() == 1 || isTransient(e)) {
+                batch.forEach((userId, update) -> failed(userId, update, e));
+            } else {
+                log.warn("Failed to flush {} patient profiles, writing them one by one", batch.size(), e);
+                batch.forEach(this::writeAlone);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("submitted", submitted.sum());
+        stats.put("skippedUnchanged", skipped.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("written", written.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("retriedAlone", retriedAlone.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("pending", pending.size());
+        return stats;
+    }
+
+    private void writeAlone(Long userId, PatientProfileUpdate update) {
+        retriedAlone.increment();
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(Map.of(userId, update)));
+            failedAttempts.remove(userId);
+        } catch (Exception e) {
+            failed(userId, update, e);
+        }
+    }
+
+    private void failed(Long userId, PatientProfileUpdate update, Exception e) {
+        if (!isTransient(e) && failedAttempts.merge(userId, 1, Integer::sum) >= MAX_ATTEMPTS) {
+            failedAttempts.remove(userId);
+            dropped.increment();
+            log.error("Dropping profile update for user {} after {} failed attempts: {}", userId, MAX_ATTEMPTS,
+                    update, e);
+            return;
+        }
+        // Anything submitted since the drain is newer and must win over the failed update
+        pending.merge(userId, update, (newer, failed) -> failed.mergeWith(newer));
+    }
+
+    private static boolean isTransient(Exception e) {
+        return e instanceof TransientDataAccessException || e instanceof CannotCreateTransactionException;
+    }
+
+    private void write(Map<Long, PatientProfileUpdate> batch) {
+        Map<Long, Patient> existing = patientRepository.findByUserIdIn(batch.keySet()).stream()
+                .collect(Collectors.toMap(p -> p.getUser().getId(), Function.identity()));
+
+        List<Patient> changed = new ArrayList<>();
+        batch.forEach((userId, update) -> {
+            Patient patient = existing.get(userId);
+            if (patient == null) {
+                patient = new Patient();
+                patient.setUser(userRepository.getReferenceById(userId));
+                update.applyTo(patient);
+                changed.add(patient);
+            } else if (update.applyTo(patient)) {
+                changed.add(patient);
+            }
+        });
+
+        // Flushed here so a row the database refuses fails this write rather than a later commit
+        patientRepository.saveAllAndFlush(changed);
+        written.add(changed.size());
+        skipped.add(batch.size() - changed.size());
+    }
+}
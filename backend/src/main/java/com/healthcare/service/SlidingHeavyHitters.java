@@ -0,0 +1,173 @@
+package com.healthcare.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Approximate most-frequent keys over a sliding window, in fixed memory. The
+ * window is a ring of slots, each covering {@code slotMillis}; every slot
+ * holds a Count-Min Sketch of its keys plus a Space-Saving table of at most
+ * {@code capacity} candidates, where a new key replaces the smallest
+ * candidate once its estimate passes it. An add touches one slot, so its
+ * cost does not depend on how many keys or events have been seen. A query
+ * merges the live slots' sketches, re-estimates the union of their
+ * candidates against the merged sketch and ranks them. The window moves a
+ * whole slot at a time, so its oldest slot may be partly outside it.
+ */
+public final class SlidingHeavyHitters {
+
+    public record HeavyHitter(long key, long count) {
+    }
+
+    private final long slotMillis;
+    private final int capacity;
+    private final Slot[] slots;
+    private final CountMinSketch merged;
+
+    public SlidingHeavyHitters(int slotCount, long slotMillis, int capacity, int depth, int width) {
+        this.slotMillis = slotMillis;
+        this.capacity = capacity;
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot(new CountMinSketch(depth, width));
+        }
+        this.merged = new CountMinSketch(depth, width);
+    }
+
+    public long windowMillis() {
+        return slotMillis * slots.length;
+    }
+
+    /** Counts {@code count} occurrences of {@code key} at {@code atMillis}, unless that is out of the window. */
+    public synchronized void add(long key, long count, long atMillis) {
+        long epoch = Math.floorDiv(atMillis, slotMillis);
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        if (slot.epoch > epoch) {
+            return;
+        }
+        if (slot.epoch < epoch) {
+            slot.reset(epoch);
+        }
+        long estimate = slot.sketch.add(key, count);
+        Map<Long, Long> candidates = slot.candidates;
+        if (candidates.size() < capacity || candidates.containsKey(key)) {
+            candidates.put(key, estimate);
+            return;
+        }
+        Map.Entry<Long, Long> smallest = null;
+        for (Map.Entry<Long, Long> candidate : candidates.entrySet()) {
+            if (smallest == null || candidate.getValue() < smallest.getValue()) {
+                smallest = candidate;
+            }
+        }
+        if (estimate > smallest.getValue()) {
+            candidates.remove(smallest.getKey());
+            candidates.put(key, estimate);
+        }
+    }
+
+    /** The {@code limit} keys with the highest estimated counts in the window ending at {@code nowMillis}. */
+    public synchronized List<HeavyHitter> top(int limit, long nowMillis) {
+        long current = Math.floorDiv(nowMillis, slotMillis);
+        merged.clear();
+        Set<Long> keys = new HashSet<>();
+        for (Slot slot : slots) {
+            if (slot.epoch > current - slots.length && slot.epoch <= current) {
+                merged.merge(slot.sketch);
+                keys.addAll(slot.candidates.keySet());
+            }
+        }
+        List<HeavyHitter> ranked = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            ranked.add(new HeavyHitter(key, merged.estimate(key)));
+        }
+        ranked.sort(Comparator.comparingLong(HeavyHitter::count).reversed()
+                .thenComparingLong(HeavyHitter::key));
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    /** Events counted in the window ending at {@code nowMillis}. */
+    public synchronized long total(long nowMillis) {
+        long current = Math.floorDiv(nowMillis, slotMillis);
+        long total = 0;
+        for (Slot slot : slots) {
+            if (slot.epoch > current - slots.length && slot.epoch <= current) {
+                total += slot.sketch.total();
+            }
+        }
+        return total;
+    }
+
+    public synchronized void clear() {
+        for (Slot slot : slots) {
+            slot.reset(Long.MIN_VALUE);
+        }
+    }
+
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(slots.length);
+        out.writeLong(slotMillis);
+        for (Slot slot : slots) {
+            out.writeLong(slot.epoch);
+            slot.sketch.writeTo(out);
+            out.writeInt(slot.candidates.size());
+            for (Map.Entry<Long, Long> candidate : slot.candidates.entrySet()) {
+                out.writeLong(candidate.getKey());
+                out.writeLong(candidate.getValue());
+            }
+        }
+    }
+
+    /**
+     * Replaces this window's contents with ones written by {@link #writeTo}.
+     * A checkpoint of a different shape is rejected and leaves this untouched.
+     */
+    public synchronized void readFrom(DataInputStream in) throws IOException {
+        int slotCount = in.readInt();
+        long storedSlotMillis = in.readLong();
+        if (slotCount != slots.length || storedSlotMillis != slotMillis) {
+            throw new IOException("Stored window has " + slotCount + " slots of " + storedSlotMillis
+                    + " ms, expected " + slots.length + " of " + slotMillis + " ms");
+        }
+        Slot[] restored = new Slot[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            Slot slot = new Slot(new CountMinSketch(merged.depth(), merged.width()));
+            slot.epoch = in.readLong();
+            slot.sketch.readFrom(in);
+            int candidateCount = in.readInt();
+            for (int c = 0; c < candidateCount; c++) {
+                long key = in.readLong();
+                long count = in.readLong();
+                if (slot.candidates.size() < capacity) {
+                    slot.candidates.put(key, count);
+                }
+            }
+            restored[i] = slot;
+        }
+        System.arraycopy(restored, 0, slots, 0, slots.length);
+    }
+
+    private static final class Slot {
+        private final CountMinSketch sketch;
+        private final Map<Long, Long> candidates = new HashMap<>();
+        private long epoch = Long.MIN_VALUE;
+
+        private Slot(CountMinSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        private void reset(long newEpoch) {
+            epoch = newEpoch;
+            sketch.clear();
+            candidates.clear();
+        }
+    }
+}
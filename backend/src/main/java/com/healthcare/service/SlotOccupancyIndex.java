@@ -0,0 +1,144 @@
+package com.healthcare.service;
+
+import com.healthcare.entity.Appointment;
+import com.healthcare.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+import static com.healthcare.util.TransactionHooks.afterRollback;
+
+/**
+ * In-memory record of which 15-minute slots are taken for each doctor and day.
+ * A day is a 96-bit bitmap held in two longs and updated with CAS, so bookings
+ * for different doctors never contend and a conflict check needs no query.
+ * Bookings start on a slot boundary, so a slot here is exactly the slot the
+ * unique index added by AppointmentSlotConstraint sees. This node's bookings
+ * and cancellations update the bitmaps as they happen; other nodes' arrive
+ * through ChangeLogTailer a poll later, and the unique index catches a slot
+ * booked on two nodes inside that window.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SlotOccupancyIndex {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final Map<Long, Map<Long, AtomicLongArray>> days = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        days.clear();
+        List<Object[]> booked = appointmentRepository.findBookedSlotsFrom(Appointment.Status.BOOKED, LocalDate.now());
+        for (Object[] row : booked) {
+            tryReserve((Long) row[0], (LocalDate) row[1], (LocalTime) row[2]);
+        }
+        log.info("Slot occupancy index rebuilt from {} booked appointments", booked.size());
+    }
+
+    public static boolean isSlotStart(LocalTime time) {
+        return time.getSecond() == 0 && time.getNano() == 0 && time.getMinute() % SLOT_MINUTES == 0;
+    }
+
+    public static int slotOf(LocalTime time) {
+        return time.toSecondOfDay() / 60 / SLOT_MINUTES;
+    }
+
+    public boolean isFree(Long doctorId, LocalDate date, LocalTime time) {
+        Map<Long, AtomicLongArray> doctorDays = days.get(doctorId);
+        AtomicLongArray bitmap = doctorDays != null ? doctorDays.get(date.toEpochDay()) : null;
+        if (bitmap == null) {
+            return true;
+        }
+        int slot = slotOf(time);
+        return (bitmap.get(slot >>> 6) & (1L << slot)) == 0;
+    }
+
+    /**
+     * Snapshot of a doctor's day as two 64-bit words; bit {@code n} is set when
+     * slot {@code n} is taken.
+     */
+    public long[] occupancy(Long doctorId, LocalDate date) {
+        Map<Long, AtomicLongArray> doctorDays = days.get(doctorId);
+        AtomicLongArray bitmap = doctorDays != null ? doctorDays.get(date.toEpochDay()) : null;
+        if (bitmap == null) {
+            return new long[2];
+        }
+        return new long[] { bitmap.get(0), bitmap.get(1) };
+    }
+
+    public boolean tryReserve(Long doctorId, LocalDate date, LocalTime time) {
+        AtomicLongArray bitmap = days.computeIfAbsent(doctorId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(date.toEpochDay(), day -> new AtomicLongArray(2));
+        int slot = slotOf(time);
+        int word = slot >>> 6;
+        long mask = 1L << slot;
+        while (true) {
+            long current = bitmap.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (bitmap.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(Long doctorId, LocalDate date, LocalTime time) {
+        Map<Long, AtomicLongArray> doctorDays = days.get(doctorId);
+        AtomicLongArray bitmap = doctorDays != null ? doctorDays.get(date.toEpochDay()) : null;
+        if (bitmap == null) {
+            return;
+        }
+        int slot = slotOf(time);
+        int word = slot >>> 6;
+        long mask = 1L << slot;
+        while (true) {
+            long current = bitmap.get(word);
+            if ((current & mask) == 0 || bitmap.compareAndSet(word, current, current & ~mask)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reserves the slot and, when called inside a transaction, frees it again
+     * if that transaction does not commit.
+     */
+    public boolean reserveForTransaction(Long doctorId, LocalDate date, LocalTime time) {
+        if (!tryReserve(doctorId, date, time)) {
+            return false;
+        }
+        afterRollback(() -> release(doctorId, date, time));
+        return true;
+    }
+
+    /**
+     * Frees the slot once the surrounding transaction commits, or immediately
+     * when there is none.
+     */
+    public void releaseAfterCommit(Long doctorId, LocalDate date, LocalTime time) {
+        afterCommit(() -> release(doctorId, date, time));
+    }
+
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        long today = LocalDate.now().toEpochDay();
+        days.values().forEach(doctorDays -> doctorDays.keySet().removeIf(day -> day < today));
+    }
+}
@@ -0,0 +1,138 @@
+package com.healthcare.service;
+
+import com.healthcare.entity.TrackingIdSequence;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.TrackingIdSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out HCMS-&lt;year&gt;-NNNN tracking IDs from blocks reserved on the
+ * per-year row of {@code tracking_id_sequences}. Each node reserves a block
+ * under a row lock in its own short transaction and then serves IDs from
+ * memory, so concurrent bookings on any number of nodes never share a value.
+ */
+@Service
+@Slf4j
+public class TrackingIdAllocator {
+
+    private static final int MAX_RESERVE_ATTEMPTS = 3;
+
+    private final TrackingIdSequenceRepository sequenceRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final TrackingIdLookupCache trackingIdLookupCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final String nodeId;
+
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder blocksReserved = new LongAdder();
+    private volatile Block block = new Block(0, new AtomicLong(), 0);
+
+    public TrackingIdAllocator(TrackingIdSequenceRepository sequenceRepository,
+            AppointmentRepository appointmentRepository,
+            TrackingIdLookupCache trackingIdLookupCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.tracking-id.block-size:50}") int blockSize,
+            @Value("${app.node-id:local}") String nodeId) {
+        this.sequenceRepository = sequenceRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.trackingIdLookupCache = trackingIdLookupCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+        this.nodeId = nodeId;
+    }
+
+    public String nextTrackingId() {
+        int year = Year.now().getValue();
+        while (true) {
+            Block current = block;
+            if (current.year() == year) {
+                long value = current.next().getAndIncrement();
+                if (value < current.limit()) {
+                    allocated.increment();
+                    String trackingId = format(year, value);
+                    trackingIdLookupCache.recordIssued(trackingId);
+                    return trackingId;
+                }
+            }
+            refill(current, year);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Block current = block;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("allocated", allocated.sum());
+        stats.put("blocksReserved", blocksReserved.sum());
+        stats.put("blockSize", blockSize);
+        stats.put("year", current.year());
+        stats.put("remainingInBlock", Math.max(0, current.limit() - current.next().get()));
+        return stats;
+    }
+
+    private static String format(int year, long value) {
+        return String.format("HCMS-%d-%04d", year, value);
+    }
+
+    private synchronized void refill(Block seen, int year) {
+        if (block != seen) {
+            return;
+        }
+        block = reserveBlock(year);
+        blocksReserved.increment();
+    }
+
+    private Block reserveBlock(int year) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Block reserved = transactionTemplate.execute(status -> {
+                    TrackingIdSequence sequence = sequenceRepository.findByYearForUpdate(year)
+                            .orElseGet(() -> sequenceRepository.saveAndFlush(TrackingIdSequence.builder()
+                                    .year(year)
+                                    .nextValue(initialValue(year))
+                                    .build()));
+                    long start = sequence.getNextValue();
+                    sequence.setNextValue(start + blockSize);
+                    return new Block(year, new AtomicLong(start), start + blockSize);
+                });
+                log.debug("Node {} reserved tracking IDs {}..{} for {}", nodeId,
+                        reserved.next().get(), reserved.limit() - 1, year);
+                return reserved;
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+                // Another node created the row for this year first, or MySQL picked this transaction as a
+                // deadlock victim while two nodes raced for the new row's gap lock; the retry locks it instead
+                if (attempt >= MAX_RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Retrying tracking ID block reservation for {} after {}", year, e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private long initialValue(int year) {
+        // Tracking IDs issued before the allocator existed were numbered from MAX(id)
+        if (appointmentRepository.existsByTrackingIdStartingWith("HCMS-" + year + "-")) {
+            Long maxId = appointmentRepository.findMaxId();
+            return (maxId != null ? maxId : 0) + 1;
+        }
+        return 1;
+    }
+
+    private record Block(int year, AtomicLong next, long limit) {
+    }
+}
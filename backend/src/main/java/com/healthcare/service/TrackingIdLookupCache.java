@@ -0,0 +1,199 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.AppointmentResponse;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.ArchivedAppointmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+
+/**
+ * Front of the tracking-ID lookup. Rendered responses are kept in a bounded
+ * LRU with a TTL, and a Bloom filter of every issued tracking ID turns away
+ * IDs that were never issued without a query.
+ * <p>
+ * The filter is loaded from both appointment tables at startup and then fed
+ * by {@link TrackingIdAllocator} and by the change-log tailer, which sees IDs
+ * issued on other nodes. IDs numbered just above the highest one seen for
+ * their year are always checked against the database, so a booking made
+ * elsewhere moments ago is not rejected before the tailer has caught up.
+ */
+@Service
+@Slf4j
+public class TrackingIdLookupCache {
+
+    private static final Pattern TRACKING_ID = Pattern.compile("HCMS-(\\d{4})-(\\d+)");
+
+    private final AppointmentRepository appointmentRepository;
+    private final ArchivedAppointmentRepository archivedAppointmentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long ttlMs;
+    private final long expectedIds;
+    private final double bloomFpp;
+    private final long recentWindow;
+
+    private final Map<String, CachedResponse> responses;
+    private final Map<Integer, Long> highestSeen = new ConcurrentHashMap<>();
+    private volatile BloomFilter issued;
+    private volatile BloomFilter loading;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bloomRejections = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public TrackingIdLookupCache(AppointmentRepository appointmentRepository,
+            ArchivedAppointmentRepository archivedAppointmentRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.tracking-cache.max-entries:10000}") int maxEntries,
+            @Value("${app.tracking-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.tracking-cache.expected-ids:1000000}") long expectedIds,
+            @Value("${app.tracking-cache.bloom-fpp:0.01}") double bloomFpp,
+            @Value("${app.tracking-cache.recent-window:1000}") long recentWindow) {
+        this.appointmentRepository = appointmentRepository;
+        this.archivedAppointmentRepository = archivedAppointmentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ttlMs = ttlSeconds * 1000;
+        this.expectedIds = expectedIds;
+        this.bloomFpp = bloomFpp;
+        this.recentWindow = recentWindow;
+        this.responses = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIssuedIds() {
+        long existing = appointmentRepository.count() + archivedAppointmentRepository.count();
+        BloomFilter filter = new BloomFilter(Math.max(expectedIds, existing * 2), bloomFpp);
+        // IDs issued while the tables are being read go straight into the new filter
+        loading = filter;
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<String> ids = appointmentRepository.streamTrackingIds()) {
+                ids.forEach(id -> add(filter, id));
+            }
+            try (Stream<String> ids = archivedAppointmentRepository.streamTrackingIds()) {
+                ids.forEach(id -> add(filter, id));
+            }
+        });
+        issued = filter;
+        loading = null;
+        log.info("Tracking ID Bloom filter loaded with {} IDs ({} bits, {} hashes)",
+                filter.insertions(), filter.bitCount(), filter.hashCount());
+    }
+
+    public Optional<AppointmentResponse> lookup(String trackingId,
+            Function<String, Optional<AppointmentResponse>> loader) {
+        long now = System.currentTimeMillis();
+        CachedResponse cached = responses.get(trackingId);
+        if (cached != null && cached.expiresAtMs() > now) {
+            hits.increment();
+            return Optional.of(cached.response());
+        }
+
+        BloomFilter filter = issued;
+        boolean screened = filter != null && !mayBeRecent(trackingId);
+        if (screened && !filter.mightContain(trackingId)) {
+            bloomRejections.increment();
+            return Optional.empty();
+        }
+
+        misses.increment();
+        Optional<AppointmentResponse> loaded = loader.apply(trackingId);
+        if (loaded.isPresent()) {
+            responses.put(trackingId, new CachedResponse(loaded.get(), now + ttlMs));
+            if (!screened) {
+                recordIssued(trackingId);
+            }
+        } else if (screened) {
+            falsePositives.increment();
+        }
+        return loaded;
+    }
+
+    public void recordIssued(String trackingId) {
+        BloomFilter filter = issued != null ? issued : loading;
+        if (filter != null) {
+            add(filter, trackingId);
+        }
+    }
+
+    /** Drops the cached response now and again once the caller's transaction commits. */
+    public void invalidate(String trackingId) {
+        responses.remove(trackingId);
+        invalidations.increment();
+        afterCommit(() -> responses.remove(trackingId));
+    }
+
+    public void invalidateAll() {
+        responses.clear();
+        invalidations.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        BloomFilter filter = issued;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cachedResponses", responses.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("bloomRejections", bloomRejections.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("bloomLoaded", filter != null);
+        stats.put("bloomInsertions", filter != null ? filter.insertions() : 0);
+        stats.put("bloomExpectedFpp", filter != null ? filter.expectedFpp() : null);
+        return stats;
+    }
+
+    private void add(BloomFilter filter, String trackingId) {
+        filter.add(trackingId);
+        noteNumber(trackingId);
+    }
+
+    private void noteNumber(String trackingId) {
+        Matcher m = TRACKING_ID.matcher(trackingId);
+        if (m.matches() && m.group(2).length() < 18) {
+            highestSeen.merge(Integer.parseInt(m.group(1)), Long.parseLong(m.group(2)), Math::max);
+        }
+    }
+
+    private boolean mayBeRecent(String trackingId) {
+        Matcher m = TRACKING_ID.matcher(trackingId);
+        if (!m.matches() || m.group(2).length() >= 18) {
+            return false;
+        }
+        int year = Integer.parseInt(m.group(1));
+        long number = Long.parseLong(m.group(2));
+        Long highest = highestSeen.get(year);
+        if (highest == null) {
+            return year == Year.now().getValue() && number <= recentWindow;
+        }
+        return number > highest && number <= highest + recentWindow;
+    }
+
+    private record CachedResponse(AppointmentResponse response, long expiresAtMs) {
+    }
+}
@@ -0,0 +1,388 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.TrendingDoctor;
+import com.healthcare.dto.TrendingHospital;
+import com.healthcare.entity.AppointmentRollup;
+import com.healthcare.entity.Doctor;
+import com.healthcare.entity.Hospital;
+import com.healthcare.entity.TrendingCheckpoint;
+import com.healthcare.exception.BadRequestException;
+import com.healthcare.repository.AppointmentRollupRepository;
+import com.healthcare.repository.DoctorRepository;
+import com.healthcare.repository.HospitalRepository;
+import com.healthcare.repository.TrendingCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Most-booked doctors and hospitals over the last hour, day and week. Every
+ * node tails the shared minute rollups into a {@link SlidingHeavyHitters}
+ * per window, a minute once all nodes have flushed it, so each node counts
+ * the bookings of the whole cluster, memory stays fixed and reads never touch
+ * the appointments table. The holder of the {@value #LEASE} lease
+ * checkpoints the windows to trending_checkpoints, stamped with the minute
+ * they cover up to; at startup a node restores that checkpoint and tails on
+ * from its stamp. Without a checkpoint the whole week is rebuilt from the
+ * rollups, as far back as they keep minute rows.
+ */
+@Service
+@Slf4j
+public class TrendingService {
+
+    static final String LEASE = "trending-checkpoint";
+
+    private static final int MAX_LIMIT = 50;
+
+    public enum Window {
+        HOUR(12, ChronoUnit.MINUTES.getDuration().toMillis() * 5),
+        DAY(24, ChronoUnit.HOURS.getDuration().toMillis()),
+        WEEK(28, ChronoUnit.HOURS.getDuration().toMillis() * 6);
+
+        private final int slots;
+        private final long slotMillis;
+
+        Window(int slots, long slotMillis) {
+            this.slots = slots;
+            this.slotMillis = slotMillis;
+        }
+    }
+
+    private final TrendingCheckpointRepository checkpointRepository;
+    private final AppointmentRollupRepository rollupRepository;
+    private final DoctorRepository doctorRepository;
+    private final HospitalRepository hospitalRepository;
+    private final LeaseService leaseService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long settleMillis;
+
+    private final Map<Window, SlidingHeavyHitters> doctors = new EnumMap<>(Window.class);
+    private final Map<Window, SlidingHeavyHitters> hospitals = new EnumMap<>(Window.class);
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder checkpoints = new LongAdder();
+    // Minutes before this one have been counted; null until the windows are restored
+    private LocalDateTime tailedUpTo;
+    private LocalDateTime checkpointedUpTo;
+    private volatile LocalDateTime lastCheckpointAt;
+    private volatile long lastCheckpointBytes;
+    private volatile String restoredFrom = "none";
+
+    public TrendingService(TrendingCheckpointRepository checkpointRepository,
+            AppointmentRollupRepository rollupRepository, DoctorRepository doctorRepository,
+            HospitalRepository hospitalRepository, LeaseService leaseService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.rollups.flush-interval-ms:5000}") long rollupFlushMillis,
+            @Value("${app.trending.capacity:100}") int capacity,
+            @Value("${app.trending.sketch-depth:4}") int depth,
+            @Value("${app.trending.sketch-width:512}") int width) {
+        this.checkpointRepository = checkpointRepository;
+        this.rollupRepository = rollupRepository;
+        this.doctorRepository = doctorRepository;
+        this.hospitalRepository = hospitalRepository;
+        this.leaseService = leaseService;
+        // A minute is complete once every node's rollup flush after it has run, with some slack
+        this.settleMillis = rollupFlushMillis * 2 + 5000;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (Window window : Window.values()) {
+            doctors.put(window, new SlidingHeavyHitters(window.slots, window.slotMillis, capacity, depth, width));
+            hospitals.put(window, new SlidingHeavyHitters(window.slots, window.slotMillis, capacity, depth, width));
+        }
+    }
+
+    public List<TrendingDoctor> topDoctors(String windowName, int limit) {
+        List<SlidingHeavyHitters.HeavyHitter> top = top(doctors, windowName, limit);
+        Map<Long, Doctor> byId = doctorRepository.findByIdIn(top.stream()
+                .map(SlidingHeavyHitters.HeavyHitter::key).toList()).stream()
+                .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        List<TrendingDoctor> result = new ArrayList<>();
+        for (SlidingHeavyHitters.HeavyHitter hitter : top) {
+            Doctor d = byId.get(hitter.key());
+            // Doctors deleted since they were booked drop out of the list
+            if (d != null && result.size() < clamp(limit)) {
+                result.add(TrendingDoctor.builder()
+                        .id(d.getId())
+                        .name(d.getName())
+                        .specialization(d.getSpecialization())
+                        .hospitalId(d.getHospital() != null ? d.getHospital().getId() : null)
+                        .hospitalName(d.getHospital() != null ? d.getHospital().getName() : null)
+                        .imageUrl(d.getImageUrl())
+                        .bookings(hitter.count())
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    public List<TrendingHospital> topHospitals(String windowName, int limit) {
+        List<SlidingHeavyHitters.HeavyHitter> top = top(hospitals, windowName, limit);
+        Map<Long, Hospital> byId = hospitalRepository.findAllById(top.stream()
+                .map(SlidingHeavyHitters.HeavyHitter::key).toList()).stream()
+                .collect(Collectors.toMap(Hospital::getId, Function.identity()));
+        List<TrendingHospital> result = new ArrayList<>();
+        for (SlidingHeavyHitters.HeavyHitter hitter : top) {
+            Hospital h = byId.get(hitter.key());
+            if (h != null && result.size() < clamp(limit)) {
+                result.add(TrendingHospital.builder()
+                        .id(h.getId())
+                        .name(h.getName())
+                        .city(h.getCity())
+                        .imageUrl(h.getImageUrl())
+                        .bookings(hitter.count())
+                        .build());
+            }
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void restore() {
+        LocalDateTime replayFrom;
+        try {
+            Map<String, TrendingCheckpoint> stored = checkpointRepository.findAll().stream()
+                    .collect(Collectors.toMap(TrendingCheckpoint::getName, Function.identity()));
+            replayFrom = restoreAll(stored);
+        } catch (Exception e) {
+            log.error("Failed to read trending checkpoints, rebuilding from rollups", e);
+            kinds().values().forEach(windows -> windows.values().forEach(SlidingHeavyHitters::clear));
+            restoredFrom = "rollups";
+            replayFrom = weekAgo();
+        }
+        LocalDateTime upTo = settledMinute();
+        long replayed = 0;
+        if (upTo.isAfter(replayFrom)) {
+            try {
+                replayed = streamReplay(replayFrom, upTo);
+            } catch (Exception e) {
+                log.error("Failed to replay rollups into trending windows, starting empty", e);
+                kinds().values().forEach(windows -> windows.values().forEach(SlidingHeavyHitters::clear));
+                restoredFrom = "none";
+            }
+        } else {
+            upTo = replayFrom;
+        }
+        tailedUpTo = upTo;
+        log.info("Trending windows restored from {}; replayed {} bookings since {}", restoredFrom, replayed,
+                replayFrom);
+    }
+
+    /** Counts the rollup minutes completed since the last call; returns the bookings added. */
+    @Scheduled(fixedDelayString = "${app.trending.tail-interval-ms:15000}")
+    public synchronized long tail() {
+        if (tailedUpTo == null) {
+            return 0;
+        }
+        LocalDateTime upTo = settledMinute();
+        if (!upTo.isAfter(tailedUpTo)) {
+            return 0;
+        }
+        LocalDateTime from = tailedUpTo;
+        List<Object[]> minutes;
+        try {
+            // Read the few new minutes in full before recording any, so a failed read is simply retried
+            minutes = readOnlyTransaction.execute(status -> {
+                try (Stream<Object[]> rows = streamBooked(from, upTo)) {
+                    return rows.toList();
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to tail rollups into trending windows from {}", from, e);
+            return 0;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long replayed = 0;
+        for (Object[] row : minutes) {
+            replayed += record(row, zone);
+        }
+        tailedUpTo = upTo;
+        return replayed;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.checkpoint-interval-ms:60000}",
+            initialDelayString = "${app.trending.checkpoint-interval-ms:60000}")
+    public synchronized void checkpoint() {
+        // Every node holds the same windows, so one writer is enough
+        if (tailedUpTo == null || tailedUpTo.equals(checkpointedUpTo) || !leaseService.isLeader(LEASE)) {
+            return;
+        }
+        try {
+            LocalDateTime savedAt = tailedUpTo;
+            List<TrendingCheckpoint> rows = new ArrayList<>();
+            for (Map.Entry<String, Map<Window, SlidingHeavyHitters>> kind : kinds().entrySet()) {
+                for (Window window : Window.values()) {
+                    rows.add(TrendingCheckpoint.builder()
+                            .name(name(kind.getKey(), window))
+                            .payload(serialize(kind.getValue().get(window)))
+                            .savedAt(savedAt)
+                            .build());
+                }
+            }
+            checkpointRepository.saveAll(rows);
+            checkpointedUpTo = savedAt;
+            checkpoints.increment();
+            lastCheckpointAt = savedAt;
+            lastCheckpointBytes = rows.stream().mapToLong(row -> row.getPayload().length).sum();
+        } catch (Exception e) {
+            log.error("Failed to checkpoint trending windows", e);
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+
+    public Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recorded", recorded.sum());
+        stats.put("checkpointWriter", leaseService.isLeader(LEASE));
+        synchronized (this) {
+            stats.put("tailedUpTo", tailedUpTo != null ? tailedUpTo.toString() : null);
+        }
+        for (Window window : Window.values()) {
+            stats.put(window.name().toLowerCase() + "Bookings", doctors.get(window).total(now));
+        }
+        stats.put("checkpoints", checkpoints.sum());
+        stats.put("lastCheckpointAt", lastCheckpointAt != null ? lastCheckpointAt.toString() : null);
+        stats.put("lastCheckpointBytes", lastCheckpointBytes);
+        stats.put("restoredFrom", restoredFrom);
+        return stats;
+    }
+
+    /** Adds one rollup row (minute, hospital, doctor, booked) to every window; returns its bookings. */
+    private long record(Object[] row, ZoneId zone) {
+        long booked = ((Number) row[3]).longValue();
+        long atMillis = ((LocalDateTime) row[0]).atZone(zone).toInstant().toEpochMilli();
+        for (Window window : Window.values()) {
+            doctors.get(window).add((Long) row[2], booked, atMillis);
+            hospitals.get(window).add((Long) row[1], booked, atMillis);
+        }
+        recorded.add(booked);
+        return booked;
+    }
+
+    private List<SlidingHeavyHitters.HeavyHitter> top(Map<Window, SlidingHeavyHitters> windows, String windowName,
+            int limit) {
+        Window window;
+        try {
+            window = Window.valueOf(windowName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid window: " + windowName + " (expected hour, day or week)");
+        }
+        // A few spare entries cover keys whose doctor or hospital no longer exists
+        return windows.get(window).top(clamp(limit) + 5, System.currentTimeMillis());
+    }
+
+    /**
+     * Loads every window from its checkpoint and returns the time to replay
+     * rollups from. If any window has no usable checkpoint, all of them are
+     * cleared and rebuilt from a week back, so no window is counted twice.
+     */
+    private LocalDateTime restoreAll(Map<String, TrendingCheckpoint> stored) {
+        LocalDateTime weekAgo = weekAgo();
+        LocalDateTime savedAt = null;
+        try {
+            for (Map.Entry<String, Map<Window, SlidingHeavyHitters>> kind : kinds().entrySet()) {
+                for (Window window : Window.values()) {
+                    TrendingCheckpoint checkpoint = stored.get(name(kind.getKey(), window));
+                    if (checkpoint == null) {
+                        throw new IOException("No checkpoint for " + name(kind.getKey(), window));
+                    }
+                    deserialize(checkpoint.getPayload(), kind.getValue().get(window));
+                    if (savedAt == null || checkpoint.getSavedAt().isBefore(savedAt)) {
+                        savedAt = checkpoint.getSavedAt();
+                    }
+                }
+            }
+            restoredFrom = "checkpoint up to " + savedAt;
+            // The stamp is the first minute the checkpoint does not cover
+            return savedAt.isBefore(weekAgo) ? weekAgo : savedAt;
+        } catch (IOException e) {
+            if (!stored.isEmpty()) {
+                log.warn("Discarding trending checkpoints: {}", e.getMessage());
+            }
+            kinds().values().forEach(windows -> windows.values().forEach(SlidingHeavyHitters::clear));
+            restoredFrom = "rollups";
+            return weekAgo;
+        }
+    }
+
+    private long streamReplay(LocalDateTime from, LocalDateTime to) {
+        ZoneId zone = ZoneId.systemDefault();
+        long[] replayed = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = streamBooked(from, to)) {
+                rows.forEach(row -> replayed[0] += record(row, zone));
+            }
+        });
+        return replayed[0];
+    }
+
+    private Stream<Object[]> streamBooked(LocalDateTime from, LocalDateTime to) {
+        return rollupRepository.streamBookedBetween(AppointmentRollup.Granularity.MINUTE, from, to);
+    }
+
+    /** The first minute that some node may still be adding to; every minute before it is final. */
+    private LocalDateTime settledMinute() {
+        return LocalDateTime.now().minus(settleMillis, ChronoUnit.MILLIS).truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    private static LocalDateTime weekAgo() {
+        return LocalDateTime.now().minus(Window.WEEK.slots * Window.WEEK.slotMillis, ChronoUnit.MILLIS)
+                .truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    private Map<String, Map<Window, SlidingHeavyHitters>> kinds() {
+        return Map.of("doctors", doctors, "hospitals", hospitals);
+    }
+
+    private static String name(String kind, Window window) {
+        return kind + "-" + window.name().toLowerCase();
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private static byte[] serialize(SlidingHeavyHitters hitters) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            hitters.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void deserialize(byte[] payload, SlidingHeavyHitters hitters) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+            hitters.readFrom(in);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.healthcare.service;
+
+import com.healthcare.config.WaitlistEntryConstraint;
+import com.healthcare.dto.WaitlistEntryResponse;
+import com.healthcare.dto.WaitlistRequest;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.Doctor;
+import com.healthcare.entity.WaitlistEntry;
+import com.healthcare.exception.BadRequestException;
+import com.healthcare.exception.ResourceNotFoundException;
+import com.healthcare.repository.AppointmentRepository;
+import com.healthcare.repository.DoctorRepository;
+import com.healthcare.repository.UserRepository;
+import com.healthcare.repository.WaitlistEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+import static com.healthcare.util.TransactionHooks.afterRollback;
+
+/**
+ * Per-doctor waitlists. Waiting patients are held in memory in one priority
+ * queue per doctor and day (backed by waitlist_entries), so a cancellation
+ * can hand its slot to the next patient in the same transaction without
+ * scanning the table. A queue only holds entries joined on this node or
+ * loaded at startup, so when it comes up empty the table is asked instead.
+ * Either way the entry is locked before it is fulfilled, so two nodes never
+ * hand the same entry a slot.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistService {
+
+    private static final Comparator<Waiter> QUEUE_ORDER = Comparator.comparingInt(Waiter::priority).reversed()
+            .thenComparing(Waiter::createdAt)
+            .thenComparing(Waiter::id);
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final DoctorRepository doctorRepository;
+    private final UserRepository userRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final TrackingIdAllocator trackingIdAllocator;
+
+    private final Map<Long, Map<LocalDate, PriorityQueue<Waiter>>> queues = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadQueues() {
+        queues.clear();
+        List<Object[]> rows = waitlistEntryRepository.findQueueEntries(WaitlistEntry.Status.WAITING, LocalDate.now());
+        for (Object[] row : rows) {
+            enqueue(new Waiter((Long) row[0], (Long) row[1], (Long) row[2], (LocalDate) row[3],
+                    (Integer) row[4], (LocalDateTime) row[5]));
+        }
+        log.info("Loaded {} waiting patients into waitlist queues", rows.size());
+    }
+
+    @Transactional
+    public WaitlistEntryResponse join(Long userId, WaitlistRequest request) {
+        LocalDate desiredDate;
+        try {
+            desiredDate = LocalDate.parse(request.getDesiredDate());
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid desired date: " + request.getDesiredDate());
+        }
+        if (desiredDate.isBefore(LocalDate.now())) {
+            throw new BadRequestException("Desired date is in the past");
+        }
+        Doctor doctor = doctorRepository.findById(request.getDoctorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Doctor not found"));
+        if (waitlistEntryRepository.existsByPatientIdAndDoctorIdAndDesiredDateAndStatus(userId, doctor.getId(),
+                desiredDate, WaitlistEntry.Status.WAITING)) {
+            throw new BadRequestException("You are already on the waitlist for this doctor and date");
+        }
+
+        WaitlistEntry entry;
+        try {
+            entry = waitlistEntryRepository.saveAndFlush(WaitlistEntry.builder()
+                    .patient(userRepository.getReferenceById(userId))
+                    .doctor(doctor)
+                    .desiredDate(desiredDate)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Two concurrent joins both passed the check above; the unique index kept one of them
+            if (WaitlistEntryConstraint.isViolatedBy(e)) {
+                throw new BadRequestException("You are already on the waitlist for this doctor and date");
+            }
+            throw e;
+        }
+
+        Waiter waiter = new Waiter(entry.getId(), userId, doctor.getId(), desiredDate, entry.getPriority(),
+                entry.getCreatedAt());
+        afterCommit(() -> enqueue(waiter));
+        return toResponse(entry);
+    }
+
+    @Transactional
+    public WaitlistEntryResponse leave(Long userId, Long entryId) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .filter(e -> e.getPatient().getId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry not found"));
+        if (entry.getStatus() != WaitlistEntry.Status.WAITING) {
+            throw new BadRequestException("Waitlist entry is no longer waiting");
+        }
+        entry.setStatus(WaitlistEntry.Status.CANCELLED);
+        Long doctorId = entry.getDoctor().getId();
+        LocalDate desiredDate = entry.getDesiredDate();
+        afterCommit(() -> remove(doctorId, desiredDate, entryId));
+        return toResponse(entry);
+    }
+
+    /** Admin override of where a waiting entry sits in its queue; higher goes first. */
+    @Transactional
+    public WaitlistEntryResponse setPriority(Long entryId, int priority) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry not found"));
+        if (entry.getStatus() != WaitlistEntry.Status.WAITING) {
+            throw new BadRequestException("Waitlist entry is no longer waiting");
+        }
+        entry.setPriority(priority);
+        Waiter waiter = new Waiter(entry.getId(), entry.getPatient().getId(), entry.getDoctor().getId(),
+                entry.getDesiredDate(), priority, entry.getCreatedAt());
+        afterCommit(() -> reprioritize(waiter));
+        return toResponse(entry);
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryResponse> getByPatientId(Long userId) {
+        return waitlistEntryRepository.findByPatientIdWithDoctor(userId).stream().map(this::toResponse).toList();
+    }
+
+    /**
+     * Books the slot freed by {@code cancelled} for the highest-priority
+     * waiter, inside the caller's transaction. Returns the new appointment, or
+     * null when nobody is waiting for that doctor and day or the slot has
+     * already passed.
+     */
+    public Appointment backfill(Appointment cancelled) {
+        Long doctorId = cancelled.getDoctor().getId();
+        LocalDate date = cancelled.getAppointmentDate();
+        if (date.atTime(cancelled.getAppointmentTime()).isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        WaitlistEntry entry = nextWaiting(doctorId, date);
+        if (entry == null) {
+            return null;
+        }
+
+        Appointment appointment = appointmentRepository.save(Appointment.builder()
+                .trackingId(trackingIdAllocator.nextTrackingId())
+                .patient(entry.getPatient())
+                .doctor(cancelled.getDoctor())
+                .hospital(cancelled.getHospital())
+                .appointmentDate(date)
+                .appointmentTime(cancelled.getAppointmentTime())
+                .status(Appointment.Status.BOOKED)
+                .build());
+        entry.setStatus(WaitlistEntry.Status.FULFILLED);
+        entry.setAppointmentId(appointment.getId());
+        log.info("Backfilled cancelled appointment {} with waitlist entry {}", cancelled.getId(), entry.getId());
+        return appointment;
+    }
+
+    @Scheduled(cron = "0 10 0 * * *")
+    @Transactional
+    public void expirePastEntries() {
+        LocalDate today = LocalDate.now();
+        int expired = waitlistEntryRepository.expireBefore(today, WaitlistEntry.Status.WAITING,
+                WaitlistEntry.Status.EXPIRED);
+        queues.values().forEach(doctorQueues -> {
+            synchronized (doctorQueues) {
+                doctorQueues.keySet().removeIf(day -> day.isBefore(today));
+            }
+        });
+        if (expired > 0) {
+            log.info("Expired {} waitlist entries dated before {}", expired, today);
+        }
+    }
+
+    /** The first entry still waiting for the doctor and day, locked; this node's queue first, then the table. */
+    private WaitlistEntry nextWaiting(Long doctorId, LocalDate date) {
+        Waiter waiter;
+        while ((waiter = poll(doctorId, date)) != null) {
+            WaitlistEntry entry = waitlistEntryRepository.findForUpdate(waiter.id())
+                    .filter(e -> e.getStatus() == WaitlistEntry.Status.WAITING)
+                    .orElse(null);
+            if (entry != null) {
+                Waiter taken = waiter;
+                afterRollback(() -> enqueue(taken));
+                return entry;
+            }
+        }
+        // Entries joined on other nodes are only in the table
+        return waitlistEntryRepository.lockFirstInQueue(doctorId, date, WaitlistEntry.Status.WAITING.name())
+                .orElse(null);
+    }
+
+    private Map<LocalDate, PriorityQueue<Waiter>> doctorQueues(Long doctorId) {
+        return queues.computeIfAbsent(doctorId, id -> new HashMap<>());
+    }
+
+    private void enqueue(Waiter waiter) {
+        Map<LocalDate, PriorityQueue<Waiter>> doctorQueues = doctorQueues(waiter.doctorId());
+        synchronized (doctorQueues) {
+            doctorQueues.computeIfAbsent(waiter.desiredDate(), day -> new PriorityQueue<>(QUEUE_ORDER)).add(waiter);
+        }
+    }
+
+    private Waiter poll(Long doctorId, LocalDate date) {
+        Map<LocalDate, PriorityQueue<Waiter>> doctorQueues = queues.get(doctorId);
+        if (doctorQueues == null) {
+            return null;
+        }
+        synchronized (doctorQueues) {
+            PriorityQueue<Waiter> queue = doctorQueues.get(date);
+            return queue != null ? queue.poll() : null;
+        }
+    }
+
+    private void reprioritize(Waiter waiter) {
+        Map<LocalDate, PriorityQueue<Waiter>> doctorQueues = doctorQueues(waiter.doctorId());
+        synchronized (doctorQueues) {
+            PriorityQueue<Waiter> queue = doctorQueues.get(waiter.desiredDate());
+            // Not queued means a backfill has taken it meanwhile, which settles the entry either way
+            if (queue != null && queue.removeIf(queued -> queued.id().equals(waiter.id()))) {
+                queue.add(waiter);
+            }
+        }
+    }
+
+    private void remove(Long doctorId, LocalDate date, Long entryId) {
+        Map<LocalDate, PriorityQueue<Waiter>> doctorQueues = queues.get(doctorId);
+        if (doctorQueues == null) {
+            return;
+        }
+        synchronized (doctorQueues) {
+            PriorityQueue<Waiter> queue = doctorQueues.get(date);
+            if (queue != null) {
+                queue.removeIf(waiter -> waiter.id().equals(entryId));
+            }
+        }
+    }
+
+    private WaitlistEntryResponse toResponse(WaitlistEntry entry) {
+        return WaitlistEntryResponse.builder()
+                .id(entry.getId())
+                .doctorId(entry.getDoctor().getId())
+                .doctorName(entry.getDoctor().getName())
+                .desiredDate(entry.getDesiredDate().toString())
+                .priority(entry.getPriority())
+                .status(entry.getStatus().name())
+                .appointmentId(entry.getAppointmentId())
+                .createdAt(entry.getCreatedAt() != null ? entry.getCreatedAt().toString() : null)
+                .build();
+    }
+
+    private record Waiter(Long id, Long userId, Long doctorId, LocalDate desiredDate, int priority,
+            LocalDateTime createdAt) {
+    }
+}
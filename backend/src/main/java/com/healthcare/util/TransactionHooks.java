@@ -0,0 +1,42 @@
+package com.healthcare.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ties in-memory side effects to the outcome of the surrounding transaction,
+ * so caches, queues and broadcasts never reflect a write that rolled back.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /** Runs {@code action} once the surrounding transaction commits, or now when there is none. */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** Runs {@code action} if the surrounding transaction does not commit; without one, never. */
+    public static void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.healthcare.websocket;
+
+import com.healthcare.service.DashboardService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes /topic/dashboard from one background thread. Writers only mark
+ * the dashboard dirty; the first mark in a window schedules a publish and
+ * the rest fold into it, so at most one frame goes out per window however
+ * many writes land in it. Hospitals marked dirty in the window also get one
+ * frame each on /topic/dashboard/hospital/{id}; other hospitals get none.
+ */
+@Component
+@Slf4j
+public class DashboardBroadcaster {
+
+    private final MessageBus messageBus;
+    private final DashboardService dashboardService;
+    private final long windowMs;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "dashboard-broadcaster");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Set<Long> dirtyHospitals = ConcurrentHashMap.newKeySet();
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder hospitalFrames = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile long lastPublishedAt;
+
+    public DashboardBroadcaster(MessageBus messageBus, DashboardService dashboardService,
+            @Value("${app.dashboard.broadcast-window-ms:1000}") long windowMs) {
+        this.messageBus = messageBus;
+        this.dashboardService = dashboardService;
+        this.windowMs = windowMs;
+    }
+
+    public void markDirty() {
+        requested.increment();
+        if (dirty.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastPublishedAt + windowMs - System.currentTimeMillis());
+            executor.schedule(this::publish, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void markDirty(Long hospitalId) {
+        if (hospitalId != null) {
+            dirtyHospitals.add(hospitalId);
+        }
+        markDirty();
+    }
+
+    public Map<String, Object> getStats() {
+        long req = requested.sum();
+        long pub = published.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("windowMs", windowMs);
+        stats.put("requested", req);
+        stats.put("published", pub);
+        stats.put("coalesced", Math.max(0, req - pub - failures.sum()));
+        stats.put("hospitalFrames", hospitalFrames.sum());
+        stats.put("failures", failures.sum());
+        stats.put("pending", dirty.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void publish() {
+        lastPublishedAt = System.currentTimeMillis();
+        // Cleared before reading the stats so a write landing mid-publish schedules the next frame
+        dirty.set(false);
+        try {
+            messageBus.publishDerived("/topic/dashboard", dashboardService.getStats());
+            published.increment();
+            for (Long hospitalId : dirtyHospitals) {
+                dirtyHospitals.remove(hospitalId);
+                messageBus.publishDerived("/topic/dashboard/hospital/" + hospitalId,
+                        dashboardService.getHospitalStats(hospitalId));
+                hospitalFrames.increment();
+            }
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("Dashboard broadcast failed", e);
+        }
+    }
+}
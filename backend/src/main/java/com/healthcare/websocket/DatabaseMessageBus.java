@@ -0,0 +1,210 @@
+package com.healthcare.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.config.NodeIdentity;
+import com.healthcare.entity.BrokerMessage;
+import com.healthcare.repository.BrokerMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Joins the in-JVM brokers of several nodes through broker_messages. A
+ * published message is serialized to JSON once, delivered to this node's
+ * subscribers straight away and queued as that JSON; the queue is written with one batch
+ * insert per {@code flush-ms}, and every node polls for rows from other
+ * nodes every {@code poll-ms} and hands their bytes to its own broker.
+ * Like the change-log tailer, polling waits briefly at an id gap, since ids
+ * are handed out before commit.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "database")
+@Slf4j
+public class DatabaseMessageBus implements MessageBus {
+
+    private static final String INSERT = "INSERT INTO broker_messages (destination, payload, origin, published_at) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private final PayloadEncoder payloadEncoder;
+    private final BrokerMessageRepository brokerMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final NodeIdentity nodeIdentity;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.websocket.bus.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.websocket.bus.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${app.websocket.bus.gap-timeout-ms:1000}")
+    private long gapTimeoutMs;
+
+    @Value("${app.websocket.bus.retention-seconds:300}")
+    private long retentionSeconds;
+
+    private final Queue<Object[]> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private volatile long gapOpenSince;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder gapsSkipped = new LongAdder();
+
+    public DatabaseMessageBus(PayloadEncoder payloadEncoder, BrokerMessageRepository brokerMessageRepository,
+            JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, NodeIdentity nodeIdentity,
+            PlatformTransactionManager transactionManager) {
+        this.payloadEncoder = payloadEncoder;
+        this.brokerMessageRepository = brokerMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.nodeIdentity = nodeIdentity;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        cursor.set(brokerMessageRepository.findMaxId());
+    }
+
+    @Override
+    public void publish(String destination, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            log.warn("Could not serialize message for {}", destination, e);
+            return;
+        }
+        long publishedAt = System.currentTimeMillis();
+        payloadEncoder.sendSerialized(destination, json, publishedAt);
+        published.increment();
+        if (pending.incrementAndGet() > maxPending) {
+            // Other nodes' subscribers miss this one; clients resync through /api/changes
+            pending.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        outbox.add(new Object[] {destination, json, nodeIdentity.getId(), publishedAt});
+    }
+
+    @Override
+    public void publishToUser(String user, String destination, Object payload) {
+        // Resolved to sessions by each node's user destination handler on delivery
+        publish(PayloadEncoder.userDestination(user, destination), payload);
+    }
+
+    @Override
+    public void publishDerived(String destination, Object payload) {
+        payloadEncoder.send(destination, payload);
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.bus.flush-ms:50}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        Object[] row;
+        while (batch.size() < batchSize && (row = outbox.poll()) != null) {
+            batch.add(row);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        pending.addAndGet(-batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, batch));
+            written.add(batch.size());
+        } catch (Exception e) {
+            dropped.add(batch.size());
+            log.warn("Could not write {} messages to the bus", batch.size(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.bus.poll-ms:200}")
+    public void poll() {
+        long from = cursor.get();
+        if (from < 0) {
+            return;
+        }
+        try {
+            List<BrokerMessage> messages = brokerMessageRepository.findAfter(from, PageRequest.of(0, batchSize));
+            if (messages.isEmpty()) {
+                gapOpenSince = 0;
+                return;
+            }
+            long position = from;
+            for (BrokerMessage message : messages) {
+                if (message.getId() != position + 1 && !gapExpired()) {
+                    break;
+                }
+                if (message.getId() != position + 1) {
+                    gapsSkipped.increment();
+                }
+                gapOpenSince = 0;
+                position = message.getId();
+                if (!nodeIdentity.getId().equals(message.getOrigin())) {
+                    payloadEncoder.sendSerialized(message.getDestination(), message.getPayload(),
+                            message.getPublishedAt());
+                    received.increment();
+                }
+            }
+            cursor.set(position);
+        } catch (Exception e) {
+            log.error("Error polling the message bus after {}", from, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.bus.prune-interval-ms:60000}")
+    public void prune() {
+        long before = System.currentTimeMillis() - retentionSeconds * 1000;
+        transactionTemplate.executeWithoutResult(status -> brokerMessageRepository.deletePublishedBefore(before));
+    }
+
+    @Override
+    public String getMode() {
+        return "database";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cursor", cursor.get());
+        stats.put("published", published.sum());
+        stats.put("written", written.sum());
+        stats.put("pending", pending.get());
+        stats.put("dropped", dropped.sum());
+        stats.put("received", received.sum());
+        stats.put("gapsSkipped", gapsSkipped.sum());
+        stats.put("waitingOnGap", gapOpenSince != 0);
+        return stats;
+    }
+
+    private boolean gapExpired() {
+        long now = System.currentTimeMillis();
+        if (gapOpenSince == 0) {
+            gapOpenSince = now;
+        }
+        return now - gapOpenSince >= gapTimeoutMs;
+    }
+}
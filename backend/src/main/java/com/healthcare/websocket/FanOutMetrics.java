@@ -0,0 +1,158 @@
+package com.healthcare.websocket;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-node view of WebSocket fan-out. PayloadEncoder stamps each message with
+ * {@value #PUBLISHED_AT}; once a stamped message has been written to a
+ * client session here, the time since the stamp is recorded. For messages
+ * that came from another node through the bus or the relay, the stamp is
+ * that node's clock. Subscriptions are counted per destination, with
+ * numeric path segments folded into {id} in the stats; PayloadEncoder asks
+ * for the exact count to skip encodings nobody on this node has asked for.
+ */
+@Component
+public class FanOutMetrics implements ExecutorChannelInterceptor {
+
+    public static final String PUBLISHED_AT = "x-published-at";
+
+    private static final int SAMPLES = 1024;
+
+    private final Map<String, Map<String, String>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> subscribersByDestination = new ConcurrentHashMap<>();
+    private final long[] latencies = new long[SAMPLES];
+    private int sampleCount;
+    private int next;
+    private final LongAdder delivered = new LongAdder();
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+            Exception ex) {
+        if (ex != null || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> nativeHeaders = (Map<String, List<String>>)
+                message.getHeaders().get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        List<String> stamp = nativeHeaders != null ? nativeHeaders.get(PUBLISHED_AT) : null;
+        if (stamp == null || stamp.isEmpty()) {
+            return;
+        }
+        try {
+            record(System.currentTimeMillis() - Long.parseLong(stamp.get(0)));
+        } catch (NumberFormatException ignored) {
+            // Not one of ours
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        if (accessor.getSessionId() != null && accessor.getSubscriptionId() != null
+                && accessor.getDestination() != null) {
+            String previous = subscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                    .put(accessor.getSubscriptionId(), accessor.getDestination());
+            count(accessor.getDestination(), 1);
+            if (previous != null) {
+                count(previous, -1);
+            }
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> session = accessor.getSessionId() != null
+                ? subscriptions.get(accessor.getSessionId()) : null;
+        String destination = session != null && accessor.getSubscriptionId() != null
+                ? session.remove(accessor.getSubscriptionId()) : null;
+        if (destination != null) {
+            count(destination, -1);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> session = subscriptions.remove(event.getSessionId());
+        if (session != null) {
+            session.values().forEach(destination -> count(destination, -1));
+        }
+    }
+
+    /** Whether any session on this node subscribes to exactly {@code destination}. */
+    public boolean hasSubscribers(String destination) {
+        return subscribersByDestination.containsKey(destination);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Integer> byDestination = new TreeMap<>();
+        int total = 0;
+        for (Map<String, String> session : subscriptions.values()) {
+            for (String destination : session.values()) {
+                byDestination.merge(destination.replaceAll("/\\d+(?=/|$)", "/{id}"), 1, Integer::sum);
+                total++;
+            }
+        }
+        long[] sorted;
+        synchronized (latencies) {
+            sorted = Arrays.copyOf(latencies, sampleCount);
+        }
+        Arrays.sort(sorted);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("samples", sorted.length);
+        latency.put("p50", percentile(sorted, 0.50));
+        latency.put("p95", percentile(sorted, 0.95));
+        latency.put("p99", percentile(sorted, 0.99));
+        latency.put("max", sorted.length > 0 ? sorted[sorted.length - 1] : null);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", subscriptions.size());
+        stats.put("subscriptions", total);
+        stats.put("subscriptionsByDestination", byDestination);
+        stats.put("delivered", delivered.sum());
+        stats.put("fanOutLatencyMs", latency);
+        return stats;
+    }
+
+    private void count(String destination, int delta) {
+        subscribersByDestination.compute(destination, (d, count) -> {
+            int updated = (count != null ? count : 0) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    private void record(long latencyMs) {
+        delivered.increment();
+        synchronized (latencies) {
+            latencies[next] = Math.max(0, latencyMs);
+            next = (next + 1) % SAMPLES;
+            sampleCount = Math.min(sampleCount + 1, SAMPLES);
+        }
+    }
+
+    private static Long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return null;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
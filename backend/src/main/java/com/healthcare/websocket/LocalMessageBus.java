@@ -0,0 +1,43 @@
+package com.healthcare.websocket;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/** The in-JVM broker on its own; subscribers on other nodes see nothing. */
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "simple", matchIfMissing = true)
+public class LocalMessageBus implements MessageBus {
+
+    private final PayloadEncoder payloadEncoder;
+
+    public LocalMessageBus(PayloadEncoder payloadEncoder) {
+        this.payloadEncoder = payloadEncoder;
+    }
+
+    @Override
+    public void publish(String destination, Object payload) {
+        payloadEncoder.send(destination, payload);
+    }
+
+    @Override
+    public void publishToUser(String user, String destination, Object payload) {
+        payloadEncoder.send(PayloadEncoder.userDestination(user, destination), payload);
+    }
+
+    @Override
+    public void publishDerived(String destination, Object payload) {
+        payloadEncoder.send(destination, payload);
+    }
+
+    @Override
+    public String getMode() {
+        return "simple";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        return Map.of();
+    }
+}
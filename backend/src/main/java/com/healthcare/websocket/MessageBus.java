@@ -0,0 +1,32 @@
+package com.healthcare.websocket;
+
+import java.util.Map;
+
+/**
+ * Sends STOMP messages to /topic subscribers across the cluster. Which
+ * implementation is active is chosen by {@code app.websocket.broker}:
+ * {@code simple} (the in-JVM broker, single node), {@code relay} (an
+ * external STOMP broker) or {@code database} (in-JVM brokers joined through
+ * broker_messages).
+ */
+public interface MessageBus {
+
+    /** For messages about something that happened on this node; delivered once to every node's subscribers. */
+    void publish(String destination, Object payload);
+
+    /**
+     * For messages to one user's sessions, wherever they are connected;
+     * {@code destination} is the part after /user, e.g. /queue/appointments.
+     */
+    void publishToUser(String user, String destination, Object payload);
+
+    /**
+     * For messages every node derives for itself from change_log, such as
+     * change events and dashboard frames; never forwarded between nodes.
+     */
+    void publishDerived(String destination, Object payload);
+
+    String getMode();
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,204 @@
+package com.healthcare.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Serializes each outgoing message once per encoding and hands the bytes to
+ * the broker, which passes the same array to every subscriber. JSON always
+ * goes to the destination itself. With {@code app.websocket.binary.enabled},
+ * CBOR goes to the same destination plus {@value #CBOR_SUFFIX}, where
+ * PayloadEncodingInterceptor points the subscriptions of sessions that asked
+ * for it; the CBOR encode is skipped while no session subscribes there.
+ * CBOR frames are sent as application/octet-stream so they leave as binary
+ * WebSocket frames; the {@value #ENCODING_HEADER} header names the actual
+ * encoding.
+ */
+@Component
+@Slf4j
+public class PayloadEncoder {
+
+    public static final String CBOR_SUFFIX = ".cbor";
+    public static final String ENCODING_HEADER = "x-encoding";
+
+    private static final String USER_PREFIX = "/user/";
+    private static final long CBOR_DESTINATIONS_TTL_MS = 1000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper;
+    private final FanOutMetrics fanOutMetrics;
+    private final SimpUserRegistry userRegistry;
+    private final boolean binaryEnabled;
+
+    private final Map<String, Counters> counters = new LinkedHashMap<>();
+    private final LongAdder cborSkipped = new LongAdder();
+    private volatile Set<String> cborDestinations = Set.of();
+    private volatile long cborDestinationsAt;
+
+    public PayloadEncoder(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper,
+            FanOutMetrics fanOutMetrics, SimpUserRegistry userRegistry,
+            @Value("${app.websocket.binary.enabled:false}") boolean binaryEnabled) {
+        this.messagingTemplate = messagingTemplate;
+        this.jsonMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.fanOutMetrics = fanOutMetrics;
+        this.userRegistry = userRegistry;
+        this.binaryEnabled = binaryEnabled;
+        counters.put("json", new Counters());
+        counters.put("cbor", new Counters());
+    }
+
+    public boolean isBinaryEnabled() {
+        return binaryEnabled;
+    }
+
+    /** Sends {@code payload} to subscribers of every encoding. */
+    public void send(String destination, Object payload) {
+        long publishedAt = System.currentTimeMillis();
+        long started = System.nanoTime();
+        byte[] json;
+        try {
+            json = jsonMapper.writeValueAsBytes(payload);
+        } catch (Exception e) {
+            log.warn("Could not serialize message for {}", destination, e);
+            return;
+        }
+        sendJson(destination, json, started, publishedAt);
+        if (wantsCbor(destination)) {
+            started = System.nanoTime();
+            try {
+                sendCbor(destination, cborMapper.writeValueAsBytes(payload), started, publishedAt);
+            } catch (Exception e) {
+                log.warn("Could not encode message for {} as CBOR", destination, e);
+            }
+        }
+    }
+
+    /** As {@link #send(String, Object)}, for a payload that arrived already serialized as JSON. */
+    public void sendSerialized(String destination, String json, long publishedAt) {
+        long started = System.nanoTime();
+        sendJson(destination, json.getBytes(StandardCharsets.UTF_8), started, publishedAt);
+        if (wantsCbor(destination)) {
+            started = System.nanoTime();
+            try {
+                sendCbor(destination, cborMapper.writeValueAsBytes(jsonMapper.readTree(json)), started, publishedAt);
+            } catch (Exception e) {
+                log.warn("Could not encode message for {} as CBOR", destination, e);
+            }
+        }
+    }
+
+    /** The broker destination for {@code destination} addressed to one user, as SimpMessagingTemplate builds it. */
+    public static String userDestination(String user, String destination) {
+        return "/user/" + user.replace("/", "%2F") + destination;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("binaryEnabled", binaryEnabled);
+        stats.put("cborSkipped", cborSkipped.sum());
+        counters.forEach((encoding, c) -> {
+            long frames = c.frames.sum();
+            Map<String, Object> encodingStats = new LinkedHashMap<>();
+            encodingStats.put("broadcasts", frames);
+            encodingStats.put("bytes", c.bytes.sum());
+            encodingStats.put("avgBytes", frames > 0 ? c.bytes.sum() / frames : 0);
+            encodingStats.put("avgEncodeMicros", frames > 0 ? c.nanos.sum() / frames / 1000 : 0);
+            stats.put(encoding, encodingStats);
+        });
+        return stats;
+    }
+
+    private boolean wantsCbor(String destination) {
+        if (!binaryEnabled) {
+            return false;
+        }
+        String cborDestination = destination + CBOR_SUFFIX;
+        boolean subscribed = destination.startsWith(USER_PREFIX) ? userSubscribes(destination)
+                : fanOutMetrics.hasSubscribers(cborDestination) || clusterSubscribes(cborDestination);
+        if (!subscribed) {
+            cborSkipped.increment();
+        }
+        return subscribed;
+    }
+
+    /** For a destination built by {@link #userDestination}, whether any of that user's sessions took CBOR. */
+    private boolean userSubscribes(String destination) {
+        int end = destination.indexOf('/', USER_PREFIX.length());
+        if (end < 0) {
+            return false;
+        }
+        SimpUser user = userRegistry.getUser(destination.substring(USER_PREFIX.length(), end).replace("%2F", "/"));
+        // The session subscribed to /user/queue/..., which the broker resolves per session
+        String subscribed = "/user" + destination.substring(end) + CBOR_SUFFIX;
+        return user != null && user.getSessions().stream()
+                .flatMap(session -> session.getSubscriptions().stream())
+                .anyMatch(subscription -> subscribed.equals(subscription.getDestination()));
+    }
+
+    /**
+     * Subscribers on other nodes, which in relay mode the user registry learns
+     * from their broadcasts. Finding them means scanning every subscription, so
+     * the result is reused for a second; subscribers on this node are seen at
+     * once through FanOutMetrics.
+     */
+    private boolean clusterSubscribes(String cborDestination) {
+        long now = System.currentTimeMillis();
+        if (now - cborDestinationsAt > CBOR_DESTINATIONS_TTL_MS) {
+            cborDestinations = userRegistry
+                    .findSubscriptions(subscription -> subscription.getDestination().endsWith(CBOR_SUFFIX))
+                    .stream()
+                    .map(SimpSubscription::getDestination)
+                    .collect(Collectors.toSet());
+            cborDestinationsAt = now;
+        }
+        return cborDestinations.contains(cborDestination);
+    }
+
+    private void sendJson(String destination, byte[] bytes, long started, long publishedAt) {
+        send(destination, bytes, MimeTypeUtils.APPLICATION_JSON, "json", started, publishedAt);
+    }
+
+    private void sendCbor(String destination, byte[] bytes, long started, long publishedAt) {
+        send(destination + CBOR_SUFFIX, bytes, MimeTypeUtils.APPLICATION_OCTET_STREAM, "cbor", started, publishedAt);
+    }
+
+    private void send(String destination, byte[] bytes, MimeType contentType, String encoding, long started,
+            long publishedAt) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(contentType);
+        accessor.setNativeHeader(ENCODING_HEADER, encoding);
+        accessor.setNativeHeader(FanOutMetrics.PUBLISHED_AT, String.valueOf(publishedAt));
+        accessor.setLeaveMutable(true);
+        Counters c = counters.get(encoding);
+        c.nanos.add(System.nanoTime() - started);
+        c.frames.increment();
+        c.bytes.add(bytes.length);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(bytes, accessor.getMessageHeaders()));
+    }
+
+    private static final class Counters {
+        final LongAdder frames = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+}
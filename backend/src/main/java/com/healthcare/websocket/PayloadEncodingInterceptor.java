@@ -0,0 +1,59 @@
+package com.healthcare.websocket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Picks a session's payload encoding from the {@value #ENCODING_HEADER}
+ * header of its CONNECT frame. CBOR is granted only when binary encoding is
+ * enabled and the session came in on the plain WebSocket endpoint, since
+ * SockJS can only carry text; the session's subscriptions are then pointed
+ * at the CBOR variant of each destination. Registered after the
+ * authorization interceptor, which checks the destination as the client
+ * sent it. It reads the setting itself rather than asking PayloadEncoder,
+ * which needs the messaging template this configuration helps build.
+ */
+@Component
+public class PayloadEncodingInterceptor implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "payload-encoding";
+    /** Session attribute set by the handshake of the plain WebSocket endpoint. */
+    public static final String BINARY_FRAMES = "binaryFrames";
+
+    private static final String CBOR_SESSION = "cborPayloads";
+
+    private final boolean binaryEnabled;
+
+    public PayloadEncodingInterceptor(@Value("${app.websocket.binary.enabled:false}") boolean binaryEnabled) {
+        this.binaryEnabled = binaryEnabled;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null || accessor.getSessionAttributes() == null) {
+            return message;
+        }
+        Map<String, Object> session = accessor.getSessionAttributes();
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            if (binaryEnabled && session.containsKey(BINARY_FRAMES)
+                    && "cbor".equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+                session.put(CBOR_SESSION, Boolean.TRUE);
+            }
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE && session.containsKey(CBOR_SESSION)) {
+            String destination = accessor.getDestination();
+            if (destination != null && !destination.endsWith(PayloadEncoder.CBOR_SUFFIX)) {
+                accessor.setDestination(destination + PayloadEncoder.CBOR_SUFFIX);
+            }
+        }
+        return message;
+    }
+}
@@ -0,0 +1,72 @@
+package com.healthcare.websocket;
+
+import com.healthcare.service.LeaseService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends through the external STOMP broker configured in WebSocketConfig,
+ * which delivers to the subscribers of every node. Derived messages would
+ * otherwise go out once per node, so only the holder of the
+ * {@value #LEASE} lease sends them.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.broker", havingValue = "relay")
+public class RelayMessageBus implements MessageBus {
+
+    static final String LEASE = "websocket-derived-publisher";
+
+    private final PayloadEncoder payloadEncoder;
+    private final LeaseService leaseService;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder derivedPublished = new LongAdder();
+    private final LongAdder derivedSkipped = new LongAdder();
+
+    public RelayMessageBus(PayloadEncoder payloadEncoder, LeaseService leaseService) {
+        this.payloadEncoder = payloadEncoder;
+        this.leaseService = leaseService;
+    }
+
+    @Override
+    public void publish(String destination, Object payload) {
+        payloadEncoder.send(destination, payload);
+        published.increment();
+    }
+
+    @Override
+    public void publishToUser(String user, String destination, Object payload) {
+        // Sessions on other nodes are reached through the user registry broadcast set up in WebSocketConfig
+        payloadEncoder.send(PayloadEncoder.userDestination(user, destination), payload);
+        published.increment();
+    }
+
+    @Override
+    public void publishDerived(String destination, Object payload) {
+        if (!leaseService.isLeader(LEASE)) {
+            derivedSkipped.increment();
+            return;
+        }
+        payloadEncoder.send(destination, payload);
+        derivedPublished.increment();
+    }
+
+    @Override
+    public String getMode() {
+        return "relay";
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("derivedPublisher", leaseService.isLeader(LEASE));
+        stats.put("published", published.sum());
+        stats.put("derivedPublished", derivedPublished.sum());
+        stats.put("derivedSkipped", derivedSkipped.sum());
+        return stats;
+    }
+}
@@ -1,37 +1,95 @@
 package com.healthcare.websocket;
 
+import com.healthcare.dto.AppointmentDelta;
 import com.healthcare.dto.AppointmentResponse;
-import com.healthcare.dto.DashboardStats;
-import com.healthcare.service.DashboardService;
-import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import com.healthcare.dto.ChangeEvent;
+import com.healthcare.entity.Appointment;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.healthcare.util.TransactionHooks.afterCommit;
+
+/**
+ * Appointment changes go out as {@link AppointmentDelta}s once the change
+ * commits: to the patient on /user/queue/appointments, to staff on
+ * /topic/hospital/{id}/appointments and to admins on /topic/appointments.
+ */
 @Service
 public class WebSocketService {
 
-    private final SimpMessagingTemplate messagingTemplate;
-    private DashboardService dashboardService;
+    private final MessageBus messageBus;
+    private final DashboardBroadcaster dashboardBroadcaster;
+
+    public WebSocketService(MessageBus messageBus, DashboardBroadcaster dashboardBroadcaster) {
+        this.messageBus = messageBus;
+        this.dashboardBroadcaster = dashboardBroadcaster;
+    }
+
+    /** {@code version} is the sequence ChangeLogService returned for this change. */
+    public void broadcastAppointmentUpdate(Appointment appointment, long version) {
+        AppointmentDelta delta = toDelta(appointment, version);
+        String patient = appointment.getPatient().getEmail();
+        Long hospitalId = appointment.getHospital().getId();
+        afterCommit(() -> {
+            messageBus.publishToUser(patient, "/queue/appointments", delta);
+            messageBus.publish("/topic/hospital/" + hospitalId + "/appointments", delta);
+            messageBus.publish("/topic/appointments", delta);
+        });
+    }
 
-    public WebSocketService(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    /** As {@link #broadcastAppointmentUpdate}, with one frame per hospital and one overall for the batch topics. */
+    public void broadcastAppointmentBatch(List<Appointment> appointments, List<Long> versions) {
+        List<AppointmentDelta> deltas = new ArrayList<>(appointments.size());
+        Map<Long, List<AppointmentDelta>> byHospital = new LinkedHashMap<>();
+        Map<String, List<AppointmentDelta>> byPatient = new LinkedHashMap<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            AppointmentDelta delta = toDelta(appointment, versions.get(i));
+            deltas.add(delta);
+            byHospital.computeIfAbsent(appointment.getHospital().getId(), id -> new ArrayList<>()).add(delta);
+            byPatient.computeIfAbsent(appointment.getPatient().getEmail(), email -> new ArrayList<>()).add(delta);
+        }
+        afterCommit(() -> {
+            byPatient.forEach((patient, patientDeltas) ->
+                    patientDeltas.forEach(delta -> messageBus.publishToUser(patient, "/queue/appointments", delta)));
+            byHospital.forEach((hospitalId, hospitalDeltas) ->
+                    messageBus.publish("/topic/hospital/" + hospitalId + "/appointments/batch", hospitalDeltas));
+            messageBus.publish("/topic/appointments/batch", deltas);
+        });
     }
 
-    @org.springframework.beans.factory.annotation.Autowired
-    @Lazy
-    public void setDashboardService(DashboardService dashboardService) {
-        this.dashboardService = dashboardService;
+    /** Publishes a committed change-log entry; clients keep its sequence to replay from after reconnecting. */
+    public void publishChange(ChangeEvent change) {
+        messageBus.publishDerived("/topic/changes", change);
     }
 
-    public void broadcastAppointmentUpdate(AppointmentResponse appointment) {
-        messagingTemplate.convertAndSend("/topic/appointments", appointment);
+    /** Tells a waitlisted patient, on /user/queue/waitlist, which appointment they were given. */
+    public void notifyWaitlistBackfill(String patientEmail, AppointmentResponse appointment) {
+        afterCommit(() -> messageBus.publishToUser(patientEmail, "/queue/waitlist", appointment));
     }
 
+    /**
+     * Asks for a dashboard refresh. Inside a transaction the request waits for
+     * the commit, so the published totals include the caller's write.
+     */
     public void broadcastDashboardUpdate() {
-        if (dashboardService != null) {
-            DashboardStats stats = dashboardService.getStats();
-            messagingTemplate.convertAndSend("/topic/dashboard", stats);
-        }
+        broadcastDashboardUpdate(null);
+    }
+
+    /** As {@link #broadcastDashboardUpdate()}, also refreshing the given hospital's topic. */
+    public void broadcastDashboardUpdate(Long hospitalId) {
+        afterCommit(() -> dashboardBroadcaster.markDirty(hospitalId));
+    }
+
+    private static AppointmentDelta toDelta(Appointment appointment, long version) {
+        return AppointmentDelta.builder()
+                .id(appointment.getId())
+                .status(appointment.getStatus().name())
+                .version(version)
+                .build();
     }
 }
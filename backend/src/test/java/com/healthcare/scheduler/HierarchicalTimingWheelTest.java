@@ -0,0 +1,110 @@
+package com.healthcare.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Timers fire on their tick across every level of the wheel, in due order,
+ * and cancelled or replaced timers never fire.
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 10;
+
+    @Test
+    void firesOnTheDueTickInDueOrderAcrossLevels() {
+        // Four buckets per level, so these land on levels 0 through 3
+        HierarchicalTimingWheel<String, String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 4, 0);
+        wheel.schedule("c", 700, "third");
+        wheel.schedule("a", 25, "first");
+        wheel.schedule("d", 5_000, "fourth");
+        wheel.schedule("b", 150, "second");
+
+        assertThat(keys(wheel.advance(19))).isEmpty();
+        assertThat(keys(wheel.advance(20))).containsExactly("a");
+        assertThat(keys(wheel.advance(4_999))).containsExactly("b", "c");
+        List<HierarchicalTimingWheel.Timer<String, String>> last = wheel.advance(10_000);
+        assertThat(keys(last)).containsExactly("d");
+        assertThat(last.get(0).payload()).isEqualTo("fourth");
+        assertThat(last.get(0).dueAtMs()).isEqualTo(5_000);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void randomTimersFireExactlyOnceOnTheirTick() {
+        HierarchicalTimingWheel<Integer, Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, 8, 0);
+        Random random = new Random(42);
+        int count = 2_000;
+        for (int i = 0; i < count; i++) {
+            long dueAtMs = random.nextInt(1_000_000);
+            wheel.schedule(i, dueAtMs, dueAtMs);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        long previous = 0;
+        long now = 0;
+        while (now < 1_000_000) {
+            previous = now;
+            now += 1 + random.nextInt(5_000);
+            for (HierarchicalTimingWheel.Timer<Integer, Long> timer : wheel.advance(now)) {
+                long dueTick = timer.dueAtMs() / TICK_MS;
+                assertThat(dueTick).as("timer %d", timer.key())
+                        .isGreaterThan(previous / TICK_MS).isLessThanOrEqualTo(now / TICK_MS);
+                fired.add(dueTick);
+            }
+        }
+
+        assertThat(fired).hasSize(count).isSorted();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledTimersNeverFire() {
+        HierarchicalTimingWheel<String, String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 4, 0);
+        wheel.schedule("near", 30, "near");
+        wheel.schedule("far", 3_000, "far");
+        wheel.schedule("kept", 3_000, "kept");
+
+        assertThat(wheel.cancel("near")).isTrue();
+        assertThat(wheel.cancel("near")).isFalse();
+        // Cancelled after it has cascaded down a level
+        wheel.advance(2_900);
+        assertThat(wheel.cancel("far")).isTrue();
+
+        assertThat(keys(wheel.advance(10_000))).containsExactly("kept");
+        assertThat(wheel.cancel("kept")).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void reschedulingReplacesTheEarlierTimer() {
+        HierarchicalTimingWheel<String, String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 4, 0);
+        wheel.schedule("a", 100, "old");
+        wheel.schedule("a", 300, "new");
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(200)).isEmpty();
+        List<HierarchicalTimingWheel.Timer<String, String>> fired = wheel.advance(300);
+        assertThat(keys(fired)).containsExactly("a");
+        assertThat(fired.get(0).payload()).isEqualTo("new");
+    }
+
+    @Test
+    void timersAlreadyDueFireOnTheNextAdvance() {
+        HierarchicalTimingWheel<String, String> wheel = new HierarchicalTimingWheel<>(TICK_MS, 4, 1_000);
+        wheel.schedule("past", 500, "past");
+        wheel.schedule("now", 1_005, "now");
+
+        assertThat(keys(wheel.advance(1_000))).containsExactly("past", "now");
+        assertThat(wheel.advance(2_000)).isEmpty();
+    }
+
+    private static List<String> keys(List<HierarchicalTimingWheel.Timer<String, String>> timers) {
+        return timers.stream().map(HierarchicalTimingWheel.Timer::key).toList();
+    }
+}
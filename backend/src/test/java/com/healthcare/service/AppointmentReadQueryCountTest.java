@@ -0,0 +1,157 @@
+package com.healthcare.service;
+
+import com.healthcare.dto.AppointmentPageResponse;
+import com.healthcare.dto.AppointmentResponse;
+import com.healthcare.entity.Appointment;
+import com.healthcare.entity.Doctor;
+import com.healthcare.entity.Hospital;
+import com.healthcare.entity.User;
+import com.healthcare.scheduler.ReminderScheduler;
+import com.healthcare.websocket.WebSocketService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the read paths against N+1 regressions: each one must issue a fixed
+ * number of statements no matter how many appointments, doctors and
+ * hospitals the rows span.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reads;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AppointmentService.class)
+class AppointmentReadQueryCountTest {
+
+    private static final int APPOINTMENTS = 6;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private WebSocketService webSocketService;
+    @MockitoBean
+    private TrackingIdAllocator trackingIdAllocator;
+    @MockitoBean
+    private SlotOccupancyIndex slotOccupancyIndex;
+    @MockitoBean
+    private PatientProfileWriter patientProfileWriter;
+    @MockitoBean
+    private WaitlistService waitlistService;
+    @MockitoBean
+    private ReminderScheduler reminderScheduler;
+    @MockitoBean
+    private TrackingIdLookupCache trackingIdLookupCache;
+    @MockitoBean
+    private DashboardCounters dashboardCounters;
+    @MockitoBean
+    private AppointmentRollupService appointmentRollupService;
+    @MockitoBean
+    private DistinctPatientService distinctPatientService;
+    @MockitoBean
+    private ChangeLogService changeLogService;
+    @MockitoBean
+    private Validator validator;
+
+    private Statistics statistics;
+    private User patient;
+
+    @BeforeEach
+    void setUp() {
+        // Always a cache miss, so the lookup reaches the database
+        when(trackingIdLookupCache.lookup(anyString(), any())).thenAnswer(invocation -> {
+            Function<String, Optional<AppointmentResponse>> loader = invocation.getArgument(1);
+            return loader.apply(invocation.getArgument(0));
+        });
+
+        patient = persist(User.builder().name("Asha Verma").email("asha@example.com").password("x")
+                .role(User.Role.PATIENT).build());
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            // A hospital and doctor per row, so any lazy load would show up once per row
+            Hospital hospital = persist(Hospital.builder().name("Hospital " + i).state("State").city("City")
+                    .type("General").build());
+            Doctor doctor = persist(Doctor.builder().name("Doctor " + i).degree("MBBS").specialization("General")
+                    .experienceYears(5).hospital(hospital).build());
+            persist(Appointment.builder().trackingId("HCMS-2026-000" + i).patient(patient).doctor(doctor)
+                    .hospital(hospital).appointmentDate(LocalDate.now().plusDays(i + 1))
+                    .appointmentTime(LocalTime.of(9, 0)).status(Appointment.Status.BOOKED).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void trackingLookupIsOneStatement() {
+        AppointmentResponse response = appointmentService.getByTrackingId("HCMS-2026-0003");
+
+        assertThat(response.getDoctorName()).isEqualTo("Doctor 3");
+        assertThat(response.getHospitalName()).isEqualTo("Hospital 3");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void upcomingHistoryPageIsOneStatement() {
+        AppointmentPageResponse page = appointmentService.getPatientHistory(patient.getId(), "upcoming", null, 20);
+
+        assertThat(page.getItems()).hasSize(APPOINTMENTS);
+        assertThat(page.getItems()).extracting(AppointmentResponse::getPatientName).containsOnly("Asha Verma");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fullHistoryPageIsOneStatementPerTable() {
+        // Live and archived appointments are read with one statement each
+        AppointmentPageResponse page = appointmentService.getPatientHistory(patient.getId(), "all", null, 20);
+
+        assertThat(page.getItems()).hasSize(APPOINTMENTS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void recentAppointmentsIsOneStatement() {
+        List<AppointmentResponse> recent = appointmentService.getRecentAppointments();
+
+        assertThat(recent).hasSize(APPOINTMENTS);
+        assertThat(recent).extracting(AppointmentResponse::getDoctorSpecialization).containsOnly("General");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+}
@@ -0,0 +1,57 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** No false negatives, and a false-positive rate near the one it was sized for. */
+class BloomFilterTest {
+
+    private static final int EXPECTED = 10_000;
+    private static final double FPP = 0.01;
+
+    @Test
+    void neverForgetsAnAddedKey() {
+        BloomFilter filter = filledFilter(EXPECTED);
+        for (int i = 0; i < EXPECTED; i++) {
+            assertThat(filter.mightContain("in-" + i)).as("in-%d", i).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(EXPECTED);
+    }
+
+    @Test
+    void falsePositiveRateMatchesTheSizing() {
+        BloomFilter filter = filledFilter(EXPECTED);
+
+        assertThat(falsePositiveRate(filter)).isLessThan(2 * FPP);
+        assertThat(filter.expectedFpp()).isBetween(FPP / 2, 2 * FPP);
+    }
+
+    @Test
+    void reportsTheRisingRateWhenOverfilled() {
+        BloomFilter filter = filledFilter(4 * EXPECTED);
+
+        double measured = falsePositiveRate(filter);
+        assertThat(filter.expectedFpp()).isGreaterThan(10 * FPP);
+        assertThat(measured).isBetween(filter.expectedFpp() / 2, filter.expectedFpp() * 2);
+    }
+
+    private static BloomFilter filledFilter(int keys) {
+        BloomFilter filter = new BloomFilter(EXPECTED, FPP);
+        for (int i = 0; i < keys; i++) {
+            filter.add("in-" + i);
+        }
+        return filter;
+    }
+
+    private static double falsePositiveRate(BloomFilter filter) {
+        int probes = 100_000;
+        int hits = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("out-" + i)) {
+                hits++;
+            }
+        }
+        return (double) hits / probes;
+    }
+}
@@ -0,0 +1,120 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Error bounds on a skewed stream, cell-wise merging and the checkpoint format. */
+class CountMinSketchTest {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 272;
+
+    @Test
+    void neverUndercountsAndOvercountsWithinTheBound() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+        Map<Long, Long> truth = addSkewed(sketch, new Random(7), 50_000);
+
+        long bound = (long) Math.ceil(Math.E / WIDTH * sketch.total());
+        int outside = 0;
+        for (Map.Entry<Long, Long> entry : truth.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).as("key %d", entry.getKey()).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() > bound) {
+                outside++;
+            }
+        }
+        // The bound holds per key with probability 1 - e^-depth, about 98%
+        assertThat(outside).isLessThanOrEqualTo(truth.size() / 20);
+        assertThat(sketch.total()).isEqualTo(50_000);
+    }
+
+    @Test
+    void addReturnsTheNewEstimate() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+        sketch.add(42, 3);
+
+        assertThat(sketch.add(42, 2)).isEqualTo(sketch.estimate(42)).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void mergingEqualsCountingBothStreamsInOne() {
+        CountMinSketch a = new CountMinSketch(DEPTH, WIDTH);
+        CountMinSketch b = new CountMinSketch(DEPTH, WIDTH);
+        CountMinSketch both = new CountMinSketch(DEPTH, WIDTH);
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(5_000);
+            (i % 2 == 0 ? a : b).add(key, 1);
+            both.add(key, 1);
+        }
+
+        a.merge(b);
+
+        assertThat(a.total()).isEqualTo(both.total());
+        for (long key = 0; key < 5_000; key++) {
+            assertThat(a.estimate(key)).isEqualTo(both.estimate(key));
+        }
+    }
+
+    @Test
+    void rejectsMergingDifferentShapes() {
+        assertThatThrownBy(() -> new CountMinSketch(DEPTH, WIDTH).merge(new CountMinSketch(DEPTH, WIDTH + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void checkpointRoundTrips() throws IOException {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+        Map<Long, Long> truth = addSkewed(sketch, new Random(3), 10_000);
+
+        CountMinSketch restored = new CountMinSketch(DEPTH, WIDTH);
+        restored.add(1, 99);
+        restored.readFrom(read(write(sketch)));
+
+        assertThat(restored.total()).isEqualTo(sketch.total());
+        truth.keySet().forEach(key -> assertThat(restored.estimate(key)).isEqualTo(sketch.estimate(key)));
+        assertThat(write(restored)).isEqualTo(write(sketch));
+    }
+
+    @Test
+    void refusesACheckpointOfAnotherShape() throws IOException {
+        byte[] checkpoint = write(new CountMinSketch(DEPTH, WIDTH));
+
+        assertThatThrownBy(() -> new CountMinSketch(DEPTH + 1, WIDTH).readFrom(read(checkpoint)))
+                .isInstanceOf(IOException.class);
+    }
+
+    // Cubing a uniform draw piles most events onto the low keys
+    private static Map<Long, Long> addSkewed(CountMinSketch sketch, Random random, int events) {
+        Map<Long, Long> truth = new HashMap<>();
+        for (int i = 0; i < events; i++) {
+            long key = (long) (Math.pow(random.nextDouble(), 3) * 2_000);
+            sketch.add(key, 1);
+            truth.merge(key, 1L, Long::sum);
+        }
+        return truth;
+    }
+
+    private static byte[] write(CountMinSketch sketch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            sketch.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream read(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
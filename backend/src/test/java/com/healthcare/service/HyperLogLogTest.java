@@ -0,0 +1,120 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Accuracy, merge semantics and both serialized encodings. Values are
+ * sequential, which the sketch's own mixing is expected to spread.
+ */
+class HyperLogLogTest {
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int distinct : new int[] {100, 1_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (long value = 0; value < distinct; value++) {
+                sketch.add(value);
+            }
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertThat(error).as("relative error at %d", distinct)
+                    .isLessThan(3 * sketch.relativeStandardError());
+        }
+    }
+
+    @Test
+    void addingTheSameValuesAgainChangesNothing() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (long value = 0; value < 10_000; value++) {
+            sketch.add(value);
+        }
+        byte[] once = sketch.toBytes();
+        for (long value = 0; value < 10_000; value++) {
+            sketch.add(value);
+        }
+        assertThat(sketch.toBytes()).isEqualTo(once);
+    }
+
+    @Test
+    void mergeIsIdempotentAndOrderIndependent() {
+        HyperLogLog a = sketchOf(0, 30_000);
+        HyperLogLog b = sketchOf(20_000, 50_000);
+
+        HyperLogLog ab = a.copy();
+        ab.merge(b);
+        HyperLogLog ba = b.copy();
+        ba.merge(a);
+        HyperLogLog twice = ab.copy();
+        twice.merge(b);
+        twice.merge(a);
+
+        assertThat(ba.toBytes()).isEqualTo(ab.toBytes());
+        assertThat(twice.toBytes()).isEqualTo(ab.toBytes());
+        assertThat((double) ab.estimate()).isCloseTo(50_000, within(50_000 * 3 * ab.relativeStandardError()));
+    }
+
+    @Test
+    void mergingSparseIntoDenseMatchesAddingDirectly() {
+        HyperLogLog dense = sketchOf(0, 20_000);
+        HyperLogLog sparse = sketchOf(20_000, 20_050);
+        dense.merge(sparse);
+
+        assertThat(dense.toBytes()).isEqualTo(sketchOf(0, 20_050).toBytes());
+    }
+
+    @Test
+    void staysSparseWhileSmallAndRoundTripsInBothEncodings() {
+        HyperLogLog sketch = sketchOf(0, 50);
+        byte[] sparse = sketch.toBytes();
+        // Two header bytes, then three bytes per non-zero register
+        assertThat(sparse.length).isLessThan(2 + 1024);
+        assertThat((sparse.length - 2) % 3).isZero();
+        assertRoundTrips(sketch);
+
+        for (long value = 50; value < 5_000; value++) {
+            sketch.add(value);
+        }
+        assertThat(sketch.toBytes()).hasSize(2 + 1024);
+        assertRoundTrips(sketch);
+    }
+
+    @Test
+    void sparseAndDenseEncodingsOfTheSameRegistersEstimateTheSame() {
+        HyperLogLog sparse = sketchOf(0, 300);
+        ByteBuffer pairs = ByteBuffer.wrap(sparse.toBytes(), 2, sparse.toBytes().length - 2);
+        byte[] dense = new byte[2 + 1024];
+        dense[0] = 10;
+        while (pairs.remaining() >= 3) {
+            int index = pairs.getShort() & 0xFFFF;
+            dense[2 + index] = pairs.get();
+        }
+
+        assertThat(HyperLogLog.fromBytes(dense).estimate()).isEqualTo(sparse.estimate());
+    }
+
+    @Test
+    void rejectsMergingDifferentPrecisions() {
+        assertThatThrownBy(() -> new HyperLogLog(10).merge(new HyperLogLog(12)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertRoundTrips(HyperLogLog sketch) {
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+        assertThat(restored.toBytes()).isEqualTo(sketch.toBytes());
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThat(restored.precision()).isEqualTo(sketch.precision());
+    }
+
+    private static HyperLogLog sketchOf(long from, long to) {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (long value = from; value < to; value++) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+}
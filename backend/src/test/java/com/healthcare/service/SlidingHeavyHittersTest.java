@@ -0,0 +1,117 @@
+package com.healthcare.service;
+
+import com.healthcare.service.SlidingHeavyHitters.HeavyHitter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Ranking under noise, slots leaving the window, and checkpoint round trips. */
+class SlidingHeavyHittersTest {
+
+    private static final int SLOTS = 6;
+    private static final long SLOT_MS = 1_000;
+
+    @Test
+    void ranksTheHeaviestKeysAboveTheNoise() {
+        SlidingHeavyHitters window = newWindow();
+        long now = 10 * SLOT_MS;
+        for (int i = 0; i < 300; i++) {
+            window.add(1_000 + i, 1, now - (i % SLOTS) * SLOT_MS);
+        }
+        window.add(1, 1_000, now);
+        window.add(2, 500, now - SLOT_MS);
+        window.add(3, 200, now - 2 * SLOT_MS);
+
+        List<HeavyHitter> top = window.top(3, now);
+
+        assertThat(top).extracting(HeavyHitter::key).containsExactly(1L, 2L, 3L);
+        assertThat(top.get(0).count()).isGreaterThanOrEqualTo(1_000);
+        assertThat(window.total(now)).isEqualTo(300 + 1_000 + 500 + 200);
+    }
+
+    @Test
+    void countsAKeyAcrossSlots() {
+        SlidingHeavyHitters window = newWindow();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            window.add(7, 10, slot * SLOT_MS);
+        }
+
+        assertThat(window.top(1, (SLOTS - 1) * SLOT_MS)).containsExactly(new HeavyHitter(7, 60));
+    }
+
+    @Test
+    void slotsThatLeaveTheWindowStopCounting() {
+        SlidingHeavyHitters window = newWindow();
+        window.add(7, 100, 0);
+        window.add(8, 5, window.windowMillis() - 1);
+
+        assertThat(window.top(10, window.windowMillis() - 1)).extracting(HeavyHitter::key).containsExactly(7L, 8L);
+
+        // One slot later the first slot is out of the window, though nothing has overwritten it yet
+        assertThat(window.top(10, window.windowMillis())).extracting(HeavyHitter::key).containsExactly(8L);
+        assertThat(window.total(window.windowMillis())).isEqualTo(5);
+    }
+
+    @Test
+    void ignoresEventsOlderThanTheirReusedSlot() {
+        SlidingHeavyHitters window = newWindow();
+        long now = window.windowMillis();
+        window.add(8, 5, now);
+        // Same ring position as now, one full window earlier
+        window.add(7, 100, 0);
+
+        assertThat(window.top(10, now)).containsExactly(new HeavyHitter(8, 5));
+        assertThat(window.total(now)).isEqualTo(5);
+    }
+
+    @Test
+    void checkpointRoundTrips() throws IOException {
+        SlidingHeavyHitters window = newWindow();
+        long now = 20 * SLOT_MS;
+        for (int i = 0; i < 50; i++) {
+            window.add(i % 7, i, now - (i % SLOTS) * SLOT_MS);
+        }
+
+        SlidingHeavyHitters restored = newWindow();
+        restored.add(99, 1_000, now);
+        restored.readFrom(read(write(window)));
+
+        assertThat(restored.top(10, now)).isEqualTo(window.top(10, now));
+        assertThat(restored.total(now)).isEqualTo(window.total(now));
+        assertThat(write(restored)).isEqualTo(write(window));
+    }
+
+    @Test
+    void refusesACheckpointOfAnotherShapeAndKeepsItsContents() throws IOException {
+        byte[] checkpoint = write(new SlidingHeavyHitters(SLOTS + 1, SLOT_MS, 8, 4, 256));
+        SlidingHeavyHitters window = newWindow();
+        window.add(5, 3, 0);
+
+        assertThatThrownBy(() -> window.readFrom(read(checkpoint))).isInstanceOf(IOException.class);
+        assertThat(window.top(1, 0)).containsExactly(new HeavyHitter(5, 3));
+    }
+
+    private static SlidingHeavyHitters newWindow() {
+        return new SlidingHeavyHitters(SLOTS, SLOT_MS, 8, 4, 256);
+    }
+
+    private static byte[] write(SlidingHeavyHitters window) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            window.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream read(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
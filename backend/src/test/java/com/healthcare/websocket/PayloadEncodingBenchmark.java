@@ -0,0 +1,145 @@
+package com.healthcare.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.healthcare.dto.AppointmentDelta;
+import com.healthcare.dto.AppointmentResponse;
+import com.healthcare.dto.ChangeEvent;
+import com.healthcare.dto.DashboardStats;
+import com.healthcare.dto.HospitalDashboardStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JSON and CBOR for the payloads we broadcast: payload and STOMP
+ * frame size, and CPU per broadcast, counted as one serialization plus one
+ * frame encode per subscriber, the way PayloadEncoder and the broker do it.
+ * Lives with the tests so it stays out of the application; run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.healthcare.websocket.PayloadEncodingBenchmark -Dexec.args="500 2000"}
+ * (subscribers, broadcasts).
+ */
+public final class PayloadEncodingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadEncodingBenchmark.class);
+
+    private static final int WARMUP = 500;
+
+    // Keeps the JIT from discarding work whose result is otherwise unused
+    private static long sink;
+
+    private PayloadEncodingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int subscribers = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int broadcasts = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        ObjectMapper json = new ObjectMapper().findAndRegisterModules();
+        Map<String, ObjectMapper> encodings = new LinkedHashMap<>();
+        encodings.put("json", json);
+        encodings.put("cbor", json.copyWith(new CBORFactory()));
+
+        log.info("{} subscribers, {} broadcasts per payload", subscribers, broadcasts);
+        log.info(String.format("%-22s %-5s %9s %9s %12s %14s",
+                "payload", "enc", "bytes", "frame", "encode us", "cpu ms/bcast"));
+        for (Map.Entry<String, Object> payload : payloads().entrySet()) {
+            for (Map.Entry<String, ObjectMapper> encoding : encodings.entrySet()) {
+                run(payload.getKey(), payload.getValue(), encoding.getKey(), encoding.getValue(),
+                        subscribers, broadcasts);
+            }
+        }
+    }
+
+    private static void run(String name, Object payload, String encoding, ObjectMapper mapper, int subscribers,
+            int broadcasts) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        StompEncoder encoder = new StompEncoder();
+        List<Map<String, Object>> frameHeaders = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            frameHeaders.add(frameHeaders(encoding, i));
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            sink += broadcast(payload, mapper, encoder, frameHeaders);
+        }
+        long encodeStart = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < broadcasts; i++) {
+            sink += mapper.writeValueAsBytes(payload).length;
+        }
+        long encodeNanos = threads.getCurrentThreadCpuTime() - encodeStart;
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < broadcasts; i++) {
+            sink += broadcast(payload, mapper, encoder, frameHeaders);
+        }
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+
+        byte[] bytes = mapper.writeValueAsBytes(payload);
+        int frame = encoder.encode(frameHeaders.get(0), bytes).length;
+        log.info(String.format("%-22s %-5s %9d %9d %12.2f %14.3f", name, encoding, bytes.length, frame,
+                encodeNanos / 1000.0 / broadcasts, cpuNanos / 1_000_000.0 / broadcasts));
+    }
+
+    /** One serialization, then one frame per subscriber around the same bytes. */
+    private static int broadcast(Object payload, ObjectMapper mapper, StompEncoder encoder,
+            List<Map<String, Object>> frameHeaders) throws Exception {
+        byte[] bytes = mapper.writeValueAsBytes(payload);
+        int total = 0;
+        for (Map<String, Object> headers : frameHeaders) {
+            total += encoder.encode(headers, bytes).length;
+        }
+        return total;
+    }
+
+    private static Map<String, Object> frameHeaders(String encoding, int subscriber) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setNativeHeader("destination", "/topic/dashboard");
+        accessor.setNativeHeader("content-type", "json".equals(encoding) ? "application/json"
+                : "application/octet-stream");
+        accessor.setNativeHeader("subscription", "sub-" + subscriber);
+        accessor.setNativeHeader("message-id", "session" + subscriber + "-" + subscriber);
+        accessor.setNativeHeader(PayloadEncoder.ENCODING_HEADER, encoding);
+        accessor.setNativeHeader(FanOutMetrics.PUBLISHED_AT, String.valueOf(System.currentTimeMillis()));
+        return accessor.getMessageHeaders();
+    }
+
+    private static Map<String, Object> payloads() {
+        Map<String, Object> payloads = new LinkedHashMap<>();
+        payloads.put("dashboard", DashboardStats.builder()
+                .totalHospitals(42).totalDoctors(1380).totalAppointments(2_450_113)
+                .bookedAppointments(180_442).completedAppointments(2_101_873).cancelledAppointments(167_798)
+                .totalPatients(612_090).build());
+        payloads.put("hospital dashboard", HospitalDashboardStats.builder()
+                .hospitalId(17L).totalDoctors(36).totalAppointments(58_211)
+                .bookedAppointments(4_120).completedAppointments(50_017).cancelledAppointments(4_074).build());
+        payloads.put("appointment delta", delta(1));
+        List<AppointmentDelta> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(delta(i));
+        }
+        payloads.put("delta batch x50", batch);
+        payloads.put("change event", ChangeEvent.builder()
+                .sequence(9_812_334).entityType("APPOINTMENT").entityId(4_410_872L).action("UPDATED")
+                .hospitalId(17L).status("CANCELLED").at("2026-10-17T09:41:12.345").build());
+        payloads.put("full appointment", AppointmentResponse.builder()
+                .id(4_410_872L).trackingId("HCMS-2026-00441087").patientName("Asha Verma")
+                .doctorName("Dr. Rohan Mehta").doctorSpecialization("Cardiology")
+                .hospitalName("City General Hospital").appointmentDate("2026-10-21").appointmentTime("10:30")
+                .status("BOOKED").createdAt("2026-10-17T09:41:12.345").build());
+        return payloads;
+    }
+
+    private static AppointmentDelta delta(int i) {
+        return AppointmentDelta.builder().id(4_410_872L + i).status("BOOKED").version(9_812_334L + i).build();
+    }
+}
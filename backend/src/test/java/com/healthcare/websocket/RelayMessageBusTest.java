@@ -0,0 +1,208 @@
+package com.healthcare.websocket;
+
+import com.healthcare.config.WebSocketConfig;
+import com.healthcare.security.CustomUserDetailsService;
+import com.healthcare.security.JwtTokenProvider;
+import com.healthcare.security.StompAuthChannelInterceptor;
+import com.healthcare.service.LeaseService;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relay mode end to end without an external broker: an embedded Artemis
+ * server with a STOMP acceptor stands in for RabbitMQ or ActiveMQ, and two
+ * nodes, each with the real WebSocketConfig in relay mode and its own web
+ * server, connect to it. A message published on one node must reach a
+ * client connected to the other.
+ */
+class RelayMessageBusTest {
+
+    private static final String TOKEN = "admin-token";
+    private static final String ADMIN_EMAIL = "admin@example.com";
+    private static final String ORIGIN = "http://localhost:5173";
+    private static final long TIMEOUT_MS = 15_000;
+
+    private static EmbeddedActiveMQ broker;
+    private static int brokerPort;
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+    private WebSocketStompClient stompClient;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        brokerPort = freePort();
+        // /topic is publish-subscribe and /queue point-to-point, as on RabbitMQ's STOMP adapter
+        broker = new EmbeddedActiveMQ().setConfiguration(new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://localhost:" + brokerPort
+                        + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/"));
+        broker.start();
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        if (broker != null) {
+            broker.stop();
+        }
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void publishOnOneNodeReachesSubscriberOnAnother() throws Exception {
+        nodeA = startNode();
+        nodeB = startNode();
+        await(() -> relayConnected(nodeA) && relayConnected(nodeB), "both nodes to connect to the broker");
+
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        StompSession session = connect(nodeB);
+        session.subscribe("/topic/appointments", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add(new String((byte[]) payload, StandardCharsets.UTF_8));
+            }
+        });
+
+        // The SUBSCRIBE reaches the broker asynchronously, so publish until it has taken effect
+        MessageBus bus = nodeA.getBean(MessageBus.class);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        String message = null;
+        while (message == null && System.currentTimeMillis() < deadline) {
+            bus.publish("/topic/appointments", Map.of("id", 42, "status", "BOOKED"));
+            message = received.poll(250, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(bus.getMode()).isEqualTo("relay");
+        assertThat(message).isNotNull().contains("\"id\":42").contains("\"status\":\"BOOKED\"");
+    }
+
+    private ConfigurableApplicationContext startNode() {
+        // Arguments rather than default properties, which application.properties would override
+        return new SpringApplicationBuilder(Node.class)
+                .run("--server.port=0", "--spring.main.banner-mode=off",
+                        "--app.websocket.broker=relay",
+                        "--app.websocket.relay.host=localhost",
+                        "--app.websocket.relay.port=" + brokerPort);
+    }
+
+    private StompSession connect(ConfigurableApplicationContext node) throws Exception {
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new ByteArrayMessageConverter());
+        WebSocketHttpHeaders handshake = new WebSocketHttpHeaders();
+        handshake.setOrigin(ORIGIN);
+        StompHeaders connect = new StompHeaders();
+        connect.add("Authorization", "Bearer " + TOKEN);
+        int port = ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+        return stompClient.connectAsync("ws://localhost:{port}/ws-native", handshake, connect,
+                new StompSessionHandlerAdapter() { }, port).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean relayConnected(ConfigurableApplicationContext node) {
+        return node.getBean("stompBrokerRelayMessageHandler", AbstractBrokerMessageHandler.class)
+                .isBrokerAvailable();
+    }
+
+    private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** Just the messaging side of a node: the real broker configuration, endpoints and buses. */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class, WebSocketServletAutoConfiguration.class,
+            JacksonAutoConfiguration.class})
+    @Import({WebSocketConfig.class, StompAuthChannelInterceptor.class, PayloadEncodingInterceptor.class,
+            FanOutMetrics.class, PayloadEncoder.class, RelayMessageBus.class})
+    static class Node {
+
+        @Bean
+        JwtTokenProvider jwtTokenProvider() {
+            JwtTokenProvider tokenProvider = mock(JwtTokenProvider.class);
+            when(tokenProvider.validateToken(TOKEN)).thenReturn(true);
+            when(tokenProvider.getEmailFromToken(TOKEN)).thenReturn(ADMIN_EMAIL);
+            return tokenProvider;
+        }
+
+        @Bean
+        CustomUserDetailsService customUserDetailsService() {
+            CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+            when(userDetailsService.loadUserByUsername(ADMIN_EMAIL))
+                    .thenReturn(User.withUsername(ADMIN_EMAIL).password("x").roles("ADMIN").build());
+            return userDetailsService;
+        }
+
+        @Bean
+        LeaseService leaseService() {
+            return mock(LeaseService.class);
+        }
+    }
+}
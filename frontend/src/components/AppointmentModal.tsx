@@ -305,7 +305,7 @@ export default function AppointmentModal({ doctor, hospital, onClose }: Appointm
                     <label className="block text-sm text-gray-300 mb-2">
                       <FiClock className="inline mr-1" /> Appointment Time
                     </label>
-                    <input type="time" className="input-field"
+                    <input type="time" className="input-field" step={900}
                       value={form.appointmentTime} onChange={e => setForm(f => ({ ...f, appointmentTime: e.target.value }))} />
                   </div>
                   <div className="flex gap-3 mt-4">
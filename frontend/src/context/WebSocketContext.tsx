@@ -15,7 +15,8 @@ export const WebSocketProvider: React.FC<{ children: ReactNode }> = ({ children
   useEffect(() => {
     webSocketService.connect(
       () => setIsConnected(true),
-      (error) => console.error('WebSocket error:', error)
+      (error) => console.error('WebSocket error:', error),
+      () => setIsConnected(false)
     );
 
     return () => {
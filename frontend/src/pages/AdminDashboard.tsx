@@ -9,6 +9,7 @@ import { Doughnut, Bar } from 'react-chartjs-2';
 import ManageHospitals from '../components/admin/ManageHospitals';
 import ManageDoctors from '../components/admin/ManageDoctors';
 import { useWebSocket } from '../context/WebSocketContext';
+import { webSocketService, AppointmentDelta } from '../services/websocket';
 
 ChartJS.register(ArcElement, Tooltip, Legend, CategoryScale, LinearScale, BarElement, Title);
 
@@ -42,8 +43,13 @@ export default function AdminDashboard() {
   const { subscribe, unsubscribe, isConnected } = useWebSocket();
 
   useEffect(() => {
-    dashboardAPI.getStats().then(res => setStats(res.data)).catch(() => {});
-    appointmentAPI.getRecent().then(res => setRecentAppts(res.data)).catch(() => {});
+    const load = () => {
+      dashboardAPI.getStats().then(res => setStats(res.data)).catch(() => {});
+      appointmentAPI.getRecent().then(res => setRecentAppts(res.data)).catch(() => {});
+    };
+    load();
+    // Reload after a reconnect that missed changes
+    return webSocketService.onCatchUp(load);
   }, []);
 
   useEffect(() => {
@@ -52,11 +58,14 @@ export default function AdminDashboard() {
         setStats(data);
       });
 
-      subscribe('/topic/appointments', (appt: Appointment) => {
+      // Deltas only: a status change is applied in place, anything new means refetching the list
+      subscribe('/topic/appointments', (delta: AppointmentDelta) => {
         setRecentAppts(prev => {
-          const filtered = prev.filter(p => p.id !== appt.id);
-          const newList = [appt, ...filtered];
-          return newList.slice(0, 10);
+          if (prev.some(p => p.id === delta.id)) {
+            return prev.map(p => p.id === delta.id ? { ...p, status: delta.status } : p);
+          }
+          appointmentAPI.getRecent().then(res => setRecentAppts(res.data)).catch(() => {});
+          return prev;
         });
       });
     }
@@ -1,9 +1,11 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { motion } from 'framer-motion';
 import { FiArrowLeft, FiCalendar, FiClock, FiMapPin, FiLogOut, FiSearch, FiXCircle, FiCheckCircle } from 'react-icons/fi';
 import { appointmentAPI } from '../services/api';
 import { useAuth } from '../context/AuthContext';
+import { useWebSocket } from '../context/WebSocketContext';
+import { AppointmentDelta } from '../services/websocket';
 
 interface Appointment {
   id: number;
@@ -18,19 +20,61 @@ interface Appointment {
 export default function MyAppointments() {
   const [appointments, setAppointments] = useState<Appointment[]>([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [trackingId, setTrackingId] = useState('');
   const [trackedAppt, setTrackedAppt] = useState<Appointment | null>(null);
   const [trackError, setTrackError] = useState('');
   const { user, logout } = useAuth();
   const navigate = useNavigate();
+  const { subscribe, unsubscribe, isConnected } = useWebSocket();
+  const versions = useRef<Map<number, number>>(new Map());
 
-  useEffect(() => {
+  const loadFirstPage = () =>
     appointmentAPI.getMyAppointments()
-      .then(res => setAppointments(res.data))
+      .then(res => {
+        setAppointments(res.data.items);
+        setNextCursor(res.data.nextCursor);
+      })
       .catch(() => {})
       .finally(() => setLoading(false));
+
+  useEffect(() => {
+    loadFirstPage();
   }, []);
 
+  // Only this patient's own changes arrive here
+  useEffect(() => {
+    if (isConnected) {
+      subscribe('/user/queue/appointments', (delta: AppointmentDelta) => {
+        if ((versions.current.get(delta.id) ?? 0) >= delta.version) {
+          return;
+        }
+        versions.current.set(delta.id, delta.version);
+        setAppointments(prev => {
+          if (prev.some(a => a.id === delta.id)) {
+            return prev.map(a => a.id === delta.id ? { ...a, status: delta.status } : a);
+          }
+          loadFirstPage();
+          return prev;
+        });
+      });
+    }
+    return () => {
+      unsubscribe('/user/queue/appointments');
+    };
+  }, [isConnected, subscribe, unsubscribe]);
+
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    try {
+      const res = await appointmentAPI.getMyAppointments({ cursor: nextCursor });
+      setAppointments(prev => [...prev, ...res.data.items]);
+      setNextCursor(res.data.nextCursor);
+    } catch {
+      alert('Failed to load more appointments');
+    }
+  };
+
   const handleTrack = async () => {
     if (!trackingId.trim()) return;
     setTrackError('');
@@ -159,6 +203,12 @@ export default function MyAppointments() {
                   </div>
                 </motion.div>
               ))}
+              {nextCursor && (
+                <button onClick={loadMore}
+                  className="w-full text-sm text-primary-400 hover:text-primary-300 px-4 py-3 rounded-xl border border-white/10 hover:bg-white/5 transition-all">
+                  Load more
+                </button>
+              )}
             </div>
           ) : (
             <div className="glass-card p-10 rounded-2xl text-center">
@@ -44,6 +44,8 @@ export const hospitalAPI = {
   getAll: (params?: Record<string, string | number>) =>
     api.get('/hospitals', { params }),
   getById: (id: number) => api.get(`/hospitals/${id}`),
+  getTrending: (window: 'hour' | 'day' | 'week' = 'day', limit = 10) =>
+    api.get('/hospitals/trending', { params: { window, limit } }),
   create: (data: Record<string, unknown>) => api.post('/hospitals', data),
   update: (id: number, data: Record<string, unknown>) => api.put(`/hospitals/${id}`, data),
   delete: (id: number) => api.delete(`/hospitals/${id}`),
@@ -55,6 +57,8 @@ export const doctorAPI = {
     api.get('/doctors', { params }),
   getById: (id: number) => api.get(`/doctors/${id}`),
   getByHospital: (hospitalId: number) => api.get(`/doctors/hospital/${hospitalId}`),
+  getTrending: (window: 'hour' | 'day' | 'week' = 'day', limit = 10) =>
+    api.get('/doctors/trending', { params: { window, limit } }),
   create: (data: Record<string, unknown>) => api.post('/doctors', data),
   update: (id: number, data: Record<string, unknown>) => api.put(`/doctors/${id}`, data),
   delete: (id: number) => api.delete(`/doctors/${id}`),
@@ -64,7 +68,8 @@ export const doctorAPI = {
 export const appointmentAPI = {
   book: (data: Record<string, unknown>) => api.post('/appointments', data),
   getByTracking: (trackingId: string) => api.get(`/appointments/track/${trackingId}`),
-  getMyAppointments: () => api.get('/appointments/my'),
+  getMyAppointments: (params?: { scope?: string; cursor?: string; size?: number }) =>
+    api.get('/appointments/my', { params }),
   getRecent: () => api.get('/appointments/recent'),
   cancel: (id: number) => api.put(`/appointments/${id}/cancel`),
 };
@@ -83,4 +88,12 @@ export const specialityAPI = {
 // Dashboard API
 export const dashboardAPI = {
   getStats: () => api.get('/dashboard/stats'),
+  getHospitalStats: (hospitalId: number) => api.get(`/dashboard/stats/hospital/${hospitalId}`),
+  getDistinctPatients: (params: { from: string; to: string; hospitalId?: number[]; interval?: string }) =>
+    api.get('/dashboard/distinct-patients', { params, paramsSerializer: { indexes: null } }),
+};
+
+// Change log API
+export const changeAPI = {
+  getSince: (after: number, limit = 500) => api.get('/changes', { params: { after, limit } }),
 };
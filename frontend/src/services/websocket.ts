@@ -1,19 +1,63 @@
 import { Client } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
+import { changeAPI } from './api';
+
+export interface ChangeEvent {
+  sequence: number;
+  entityType: 'APPOINTMENT' | 'DOCTOR' | 'HOSPITAL';
+  entityId: number;
+  action: 'CREATED' | 'UPDATED' | 'DELETED' | 'EXTERNAL';
+  hospitalId: number | null;
+  status: string | null;
+  at: string;
+}
+
+// What /topic/appointments, /topic/hospital/{id}/appointments and /user/queue/appointments carry;
+// version is the change-log sequence, so a larger one is always newer
+export interface AppointmentDelta {
+  id: number;
+  status: string;
+  version: number;
+}
+
+type ChangeListener = (change: ChangeEvent) => void;
+type CatchUpListener = (replayed: ChangeEvent[], resyncRequired: boolean) => void;
 
 class WebSocketService {
   private client: Client | null = null;
   private connected: boolean = false;
   private subscriptions: Map<string, any> = new Map();
+  private hasConnected = false;
+  private lastSequence = 0;
+  private replaying = false;
+  private buffered: ChangeEvent[] = [];
+  private changeListeners: Set<ChangeListener> = new Set();
+  private catchUpListeners: Set<CatchUpListener> = new Set();
 
-  connect(onConnect: () => void, onError: (error: any) => void) {
+  connect(onConnect: () => void, onError: (error: any) => void, onClose: () => void = () => {}) {
     this.client = new Client({
       webSocketFactory: () => new SockJS('http://localhost:8080/ws'),
+      // The session is authenticated by the CONNECT frame; read the token on every (re)connect
+      beforeConnect: () => {
+        const token = localStorage.getItem('token');
+        if (this.client) {
+          this.client.connectHeaders = token ? { Authorization: `Bearer ${token}` } : {};
+        }
+      },
       debug: (str) => {
         console.log(str);
       },
       onConnect: () => {
         this.connected = true;
+        const reconnected = this.hasConnected;
+        this.hasConnected = true;
+        // The change feed covers every patient's appointments, so only admins may follow it
+        if (this.isAdmin()) {
+          this.client?.subscribe('/topic/changes', (message) => this.receiveChange(JSON.parse(message.body)));
+        }
+        if (reconnected) {
+          this.replayMissedChanges();
+        }
         onConnect();
         console.log('Connected to WebSocket');
       },
@@ -22,6 +66,11 @@ class WebSocketService {
         console.error('Additional details: ' + frame.body);
         onError(frame);
       },
+      onWebSocketClose: () => {
+        this.connected = false;
+        this.subscriptions.clear();
+        onClose();
+      },
     });
 
     this.client.activate();
@@ -34,6 +83,16 @@ class WebSocketService {
     }
   }
 
+  // Starts a new session, e.g. after login or logout, so it carries the current token
+  async reconnect() {
+    if (this.client) {
+      await this.client.deactivate();
+      this.lastSequence = 0;
+      this.hasConnected = false;
+      this.client.activate();
+    }
+  }
+
   subscribe(topic: string, callback: (message: any) => void) {
     if (this.client && this.connected) {
       const subscription = this.client.subscribe(topic, (message) => {
@@ -55,6 +114,89 @@ class WebSocketService {
     }
   }
 
+  // Every change on /topic/changes, in sequence order, including ones replayed after a reconnect; admins only
+  onChange(listener: ChangeListener) {
+    this.changeListeners.add(listener);
+    return () => {
+      this.changeListeners.delete(listener);
+    };
+  }
+
+  // Called once a reconnect has caught up; resyncRequired means the gap was too old to replay
+  onCatchUp(listener: CatchUpListener) {
+    this.catchUpListeners.add(listener);
+    return () => {
+      this.catchUpListeners.delete(listener);
+    };
+  }
+
+  private isAdmin() {
+    if (!localStorage.getItem('token')) {
+      return false;
+    }
+    try {
+      return JSON.parse(localStorage.getItem('user') || 'null')?.role === 'ADMIN';
+    } catch {
+      return false;
+    }
+  }
+
+  private receiveChange(change: ChangeEvent) {
+    if (this.replaying) {
+      this.buffered.push(change);
+    } else {
+      this.dispatchChange(change);
+    }
+  }
+
+  private dispatchChange(change: ChangeEvent) {
+    if (change.sequence <= this.lastSequence) {
+      return;
+    }
+    this.lastSequence = change.sequence;
+    this.changeListeners.forEach((listener) => listener(change));
+  }
+
+  // Live changes are held back while the missed ones are fetched, so listeners see them in order
+  private async replayMissedChanges() {
+    if (this.lastSequence === 0 || !this.isAdmin()) {
+      return;
+    }
+    this.replaying = true;
+    const replayed: ChangeEvent[] = [];
+    let resyncRequired = false;
+    try {
+      let after = this.lastSequence;
+      for (;;) {
+        const { data } = await changeAPI.getSince(after);
+        if (data.resyncRequired) {
+          resyncRequired = true;
+          this.lastSequence = data.lastSequence;
+          break;
+        }
+        data.changes.forEach((change: ChangeEvent) => {
+          replayed.push(change);
+          this.dispatchChange(change);
+        });
+        if (!data.hasMore) {
+          break;
+        }
+        after = data.lastSequence;
+      }
+    } catch (error) {
+      console.warn('Could not replay missed changes', error);
+      resyncRequired = true;
+    } finally {
+      this.replaying = false;
+      const pending = this.buffered;
+      this.buffered = [];
+      pending.forEach((change) => this.dispatchChange(change));
+    }
+    if (replayed.length > 0 || resyncRequired) {
+      this.catchUpListeners.forEach((listener) => listener(replayed, resyncRequired));
+    }
+  }
+
   isConnected() {
     return this.connected;
   }